@@ -0,0 +1,112 @@
+package com.guapi_exe.benchmark;
+
+import com.guapi_exe.export.AtlasGenerator;
+import com.guapi_exe.export.TextureEntry;
+import com.guapi_exe.export.packing.MaxRectsPacker;
+import com.guapi_exe.export.packing.PackResult;
+import com.guapi_exe.export.packing.PackingAlgorithm;
+import com.guapi_exe.export.packing.PackingStrategy;
+import com.guapi_exe.util.PixelBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Atlas packing and full atlas generation on synthetic texture sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AtlasPackingBenchmark {
+
+    /**
+     * Size distributions seen in real mods.
+     */
+    public enum Distribution {
+        /** Every texture 16x16, like most vanilla-style blocks */
+        UNIFORM,
+        /** Mostly 16x16 with some 32x32 and 64x64 */
+        MIXED,
+        /** Mostly small with a few large GUI or entity sheets */
+        SKEWED
+    }
+
+    @Param({"SHELF", "MAXRECTS", "SKYLINE"})
+    public PackingAlgorithm algorithm;
+
+    @Param({"UNIFORM", "MIXED", "SKEWED"})
+    public Distribution distribution;
+
+    @Param({"500", "5000"})
+    public int count;
+
+    private List<TextureEntry> textures;
+    private PackingStrategy strategy;
+    private File outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        textures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int width = size(random);
+            int height = distribution == Distribution.UNIFORM ? width : size(random);
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(0, 0, random.nextInt());
+            textures.add(new TextureEntry("texture_" + i, PixelBuffer.of(image)));
+        }
+        strategy = algorithm.create(MaxRectsPacker.Heuristic.BEST_SHORT_SIDE_FIT);
+        outputDir = Files.createTempDirectory("atlas-benchmark").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = outputDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    private int size(Random random) {
+        int roll = random.nextInt(100);
+        switch (distribution) {
+            case MIXED:
+                return roll < 70 ? 16 : roll < 90 ? 32 : 64;
+            case SKEWED:
+                return roll < 90 ? 16 : roll < 98 ? 64 : 256;
+            case UNIFORM:
+            default:
+                return 16;
+        }
+    }
+
+    @Benchmark
+    public PackResult pack() {
+        return strategy.pack(textures, 4096, 4096);
+    }
+
+    @Benchmark
+    public void generateAtlas() throws IOException {
+        AtlasGenerator.generateAtlas(textures, Collections.emptyMap(), outputDir, "atlas.png", "data.min.json");
+    }
+}
@@ -0,0 +1,101 @@
+package com.guapi_exe.benchmark;
+
+import com.guapi_exe.util.NativePixels;
+import com.mojang.blaze3d.platform.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.reflect.Field;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cropping one icon out of a batch frame and keying its background to transparent:
+ * the per-pixel getPixelRGBA/setPixelRGBA path against the row-major bulk path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IconKeyingBenchmark {
+    private static final int BACKGROUND = 0xFFFFFFFE;
+    private static final int GRID = 4;
+
+    @Param({"32", "128", "512"})
+    public int iconSize;
+
+    private Field pixelsField;
+    private NativeImage frame;
+    private IntBuffer framePixels;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        // The mixin accessor is not applied outside the game, so read the field reflectively
+        pixelsField = NativeImage.class.getDeclaredField("pixels");
+        pixelsField.setAccessible(true);
+
+        int size = iconSize * GRID;
+        frame = new NativeImage(size, size, false);
+        // Mostly background, like a rendered item icon
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                frame.setPixelRGBA(x, y, random.nextInt(3) == 0 ? random.nextInt() | 0xFF000000 : BACKGROUND);
+            }
+        }
+        framePixels = pixels(frame);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frame.close();
+    }
+
+    /**
+     * The original column-major crop and keying through the per-pixel accessors.
+     */
+    @Benchmark
+    public int perPixel() {
+        try (NativeImage icon = new NativeImage(iconSize, iconSize, false)) {
+            for (int y = 0; y < iconSize; y++) {
+                for (int x = 0; x < iconSize; x++) {
+                    icon.setPixelRGBA(x, y, frame.getPixelRGBA(iconSize + x, iconSize + y));
+                }
+            }
+            for (int cx = 0; cx < iconSize; cx++) {
+                for (int cy = 0; cy < iconSize; cy++) {
+                    if (icon.getPixelRGBA(cx, cy) == BACKGROUND) {
+                        icon.setPixelRGBA(cx, cy, 0);
+                    }
+                }
+            }
+            return icon.getPixelRGBA(iconSize - 1, iconSize - 1);
+        }
+    }
+
+    /**
+     * Row-major bulk copy with a branch-free keying loop.
+     */
+    @Benchmark
+    public int bulkRows() throws ReflectiveOperationException {
+        try (NativeImage icon = new NativeImage(iconSize, iconSize, false)) {
+            IntBuffer target = pixels(icon);
+            NativePixels.copyKeyed(framePixels, iconSize * GRID, iconSize, iconSize, target, iconSize,
+                    iconSize, iconSize, BACKGROUND);
+            return target.get(iconSize * iconSize - 1);
+        }
+    }
+
+    private IntBuffer pixels(NativeImage image) throws ReflectiveOperationException {
+        return MemoryUtil.memIntBuffer(pixelsField.getLong(image), image.getWidth() * image.getHeight());
+    }
+}
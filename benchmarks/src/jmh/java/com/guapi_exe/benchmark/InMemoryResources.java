@@ -0,0 +1,91 @@
+package com.guapi_exe.benchmark;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Resource manager over byte arrays held in memory, so the exporter can be benchmarked
+ * without a running game or any pack on disk.
+ */
+public class InMemoryResources implements ResourceManager {
+    private final Map<ResourceLocation, byte[]> files = new LinkedHashMap<>();
+
+    public void put(ResourceLocation location, byte[] data) {
+        files.put(location, data);
+    }
+
+    /**
+     * Wrap bytes in a resource without a backing pack.
+     */
+    public static Resource resource(byte[] data) {
+        return new Resource(null, () -> new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Wrap every entry of a map in a resource, keeping its order.
+     */
+    public static Map<ResourceLocation, Resource> resources(Map<ResourceLocation, byte[]> data) {
+        Map<ResourceLocation, Resource> resources = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, byte[]> entry : data.entrySet()) {
+            resources.put(entry.getKey(), resource(entry.getValue()));
+        }
+        return resources;
+    }
+
+    @Override
+    public Optional<Resource> getResource(ResourceLocation location) {
+        byte[] data = files.get(location);
+        return data != null ? Optional.of(resource(data)) : Optional.empty();
+    }
+
+    @Override
+    public Set<String> getNamespaces() {
+        Set<String> namespaces = new TreeSet<>();
+        for (ResourceLocation location : files.keySet()) {
+            namespaces.add(location.getNamespace());
+        }
+        return namespaces;
+    }
+
+    @Override
+    public List<Resource> getResourceStack(ResourceLocation location) {
+        return getResource(location).map(List::of).orElse(List.of());
+    }
+
+    @Override
+    public Map<ResourceLocation, Resource> listResources(String path, Predicate<ResourceLocation> filter) {
+        Map<ResourceLocation, Resource> found = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, byte[]> entry : files.entrySet()) {
+            ResourceLocation location = entry.getKey();
+            if (location.getPath().startsWith(path + "/") && filter.test(location)) {
+                found.put(location, resource(entry.getValue()));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Map<ResourceLocation, List<Resource>> listResourceStacks(String path, Predicate<ResourceLocation> filter) {
+        Map<ResourceLocation, List<Resource>> found = new LinkedHashMap<>();
+        listResources(path, filter).forEach((location, resource) -> found.put(location, new ArrayList<>(List.of(resource))));
+        return found;
+    }
+
+    @Override
+    public Stream<PackResources> listPacks() {
+        return Stream.empty();
+    }
+}
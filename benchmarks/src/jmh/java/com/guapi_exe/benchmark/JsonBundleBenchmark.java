@@ -0,0 +1,106 @@
+package com.guapi_exe.benchmark;
+
+import com.guapi_exe.export.JsonBundleWriter;
+import com.guapi_exe.export.ModelExporter;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Bundling block model JSON files into one data.min.json, through the model exporter
+ * and through the bundle writer alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonBundleBenchmark {
+    private static final String NAMESPACE = "bench";
+
+    @Param({"1000", "10000"})
+    public int count;
+
+    private Map<ResourceLocation, Resource> models;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<ResourceLocation, byte[]> data = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            data.put(new ResourceLocation(NAMESPACE, "models/block/model_" + i + ".json"),
+                    model(i).getBytes(StandardCharsets.UTF_8));
+        }
+        models = InMemoryResources.resources(data);
+        outputDir = Files.createTempDirectory("bundle-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * A pretty-printed block model with parent, textures and a few elements, like a typical mod model.
+     */
+    private static String model(int index) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n  \"parent\": \"minecraft:block/block\",\n  \"textures\": {\n")
+                .append("    \"particle\": \"").append(NAMESPACE).append(":block/model_").append(index).append("\",\n")
+                .append("    \"side\": \"").append(NAMESPACE).append(":block/model_").append(index).append("_side\"\n")
+                .append("  },\n  \"elements\": [\n");
+        for (int e = 0; e < 4; e++) {
+            builder.append("    {\n      \"from\": [").append(e * 4).append(", 0, 0],\n")
+                    .append("      \"to\": [").append(e * 4 + 4).append(", 16, 16],\n")
+                    .append("      \"faces\": {\n");
+            String[] faces = {"north", "east", "south", "west", "up", "down"};
+            for (int f = 0; f < faces.length; f++) {
+                builder.append("        \"").append(faces[f]).append("\": {\"uv\": [0, 0, 16, 16], ")
+                        .append("\"texture\": \"#side\", \"cullface\": \"").append(faces[f]).append("\"}")
+                        .append(f < faces.length - 1 ? ",\n" : "\n");
+            }
+            builder.append("      }\n    }").append(e < 3 ? ",\n" : "\n");
+        }
+        builder.append("  ]\n}\n");
+        return builder.toString();
+    }
+
+    @Benchmark
+    public void exportBlockModels() throws IOException {
+        ModelExporter.exportBlockModels(models, outputDir.toFile(), NAMESPACE);
+    }
+
+    @Benchmark
+    public int copyEntries() throws IOException {
+        try (JsonBundleWriter bundle = new JsonBundleWriter(outputDir.resolve("bundle.min.json").toFile())) {
+            for (Map.Entry<ResourceLocation, Resource> entry : models.entrySet()) {
+                try (Reader reader = new InputStreamReader(entry.getValue().open(), StandardCharsets.UTF_8)) {
+                    bundle.copyEntry(entry.getKey().getPath(), reader);
+                }
+            }
+            return bundle.getCount();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.guapi_exe.benchmark;
+
+import com.guapi_exe.export.TextureRegistry;
+import com.guapi_exe.util.TextureUtils;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Texture collection: MTL parsing with texture lookups, and content-hash deduplication
+ * of a texture set where many keys share the same image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MtlTextureBenchmark {
+    private static final String NAMESPACE = "bench";
+
+    @Param({"1000", "10000"})
+    public int count;
+
+    /** Fraction of textures that are copies of another texture */
+    @Param({"0.0", "0.75"})
+    public double duplicates;
+
+    private InMemoryResources manager;
+    private Map<ResourceLocation, Resource> mtlFiles;
+    private Map<ResourceLocation, byte[]> loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int unique = Math.max(1, (int) Math.round(count * (1.0 - duplicates)));
+        byte[][] images = new byte[unique][];
+        for (int i = 0; i < unique; i++) {
+            images[i] = png(random);
+        }
+
+        manager = new InMemoryResources();
+        loaded = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            ResourceLocation location = new ResourceLocation(NAMESPACE, "textures/block/texture_" + i + ".png");
+            byte[] data = images[i % unique];
+            manager.put(location, data);
+            loaded.put(location, data);
+        }
+
+        // One material library per 10 textures, each material referencing its texture twice
+        Map<ResourceLocation, byte[]> mtl = new LinkedHashMap<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("# material ").append(i).append('\n')
+                    .append("newmtl material_").append(i).append('\n')
+                    .append("Kd 1.000000 1.000000 1.000000\n")
+                    // Alternate between paths with and without the textures/ prefix
+                    .append("map_Kd ").append(i % 2 == 0 ? NAMESPACE + ":block/" : "textures/block/")
+                    .append("texture_").append(i).append(".png\n")
+                    .append("map_d block/texture_").append(i).append(".png\n\n");
+            if (i % 10 == 9 || i == count - 1) {
+                mtl.put(new ResourceLocation(NAMESPACE, "models/obj/library_" + i / 10 + ".mtl"),
+                        builder.toString().getBytes(StandardCharsets.UTF_8));
+                builder.setLength(0);
+            }
+        }
+        mtlFiles = InMemoryResources.resources(mtl);
+    }
+
+    private static byte[] png(Random random) throws IOException {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                image.setRGB(x, y, random.nextInt() | 0xFF000000);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public TextureRegistry collectMtlTextures() {
+        TextureRegistry registry = new TextureRegistry();
+        TextureUtils.collectMtlTextures(manager, mtlFiles, NAMESPACE, registry);
+        return registry;
+    }
+
+    @Benchmark
+    public TextureRegistry collectTextures() {
+        TextureRegistry registry = new TextureRegistry();
+        TextureUtils.collectTextures(loaded, "textures/", registry);
+        return registry;
+    }
+}
@@ -0,0 +1,100 @@
+package com.guapi_exe.benchmark;
+
+import com.google.gson.stream.JsonWriter;
+import com.guapi_exe.export.ObjConverter;
+import com.guapi_exe.export.ObjMesh;
+import com.guapi_exe.export.PackedMesh;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OBJ parsing, JSON conversion and binary mesh packing on large generated grid meshes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ObjParseBenchmark {
+
+    /** Grid resolution; the mesh has (size + 1)^2 vertices and size^2 quads */
+    @Param({"100", "500"})
+    public int size;
+
+    private byte[] obj;
+    private ObjMesh mesh;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        obj = generateGrid(size).getBytes(StandardCharsets.UTF_8);
+        mesh = ObjConverter.parse(new ByteArrayInputStream(obj));
+    }
+
+    /**
+     * A height-mapped grid with texture coordinates and normals on every corner.
+     */
+    private static String generateGrid(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        builder.append("# generated grid\nmtllib grid.mtl\no grid\n");
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                builder.append(String.format(Locale.ROOT, "v %.6f %.6f %.6f%n",
+                        (float) x / size, random.nextFloat() * 0.1f, (float) z / size));
+                builder.append(String.format(Locale.ROOT, "vt %.6f %.6f%n", (float) x / size, (float) z / size));
+                builder.append(String.format(Locale.ROOT, "vn %.4f %.4f %.4f%n",
+                        random.nextFloat() * 0.1f, 1.0f, random.nextFloat() * 0.1f));
+            }
+        }
+        builder.append("usemtl grid\ns off\n");
+        int row = size + 1;
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int a = z * row + x + 1;
+                int b = a + 1;
+                int c = a + row + 1;
+                int d = a + row;
+                builder.append("f ").append(a).append('/').append(a).append('/').append(a)
+                        .append(' ').append(b).append('/').append(b).append('/').append(b)
+                        .append(' ').append(c).append('/').append(c).append('/').append(c)
+                        .append(' ').append(d).append('/').append(d).append('/').append(d).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public ObjMesh parse() throws IOException {
+        return ObjConverter.parse(new ByteArrayInputStream(obj));
+    }
+
+    /**
+     * Parse and write the JSON model entry, as the model bundle does.
+     */
+    @Benchmark
+    public int parseToJson() throws IOException {
+        StringWriter out = new StringWriter(obj.length);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            ObjConverter.parse(new ByteArrayInputStream(obj)).writeJson(writer);
+        }
+        return out.getBuffer().length();
+    }
+
+    @Benchmark
+    public PackedMesh pack() {
+        return PackedMesh.of(mesh);
+    }
+}
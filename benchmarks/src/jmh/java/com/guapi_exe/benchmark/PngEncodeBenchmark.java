@@ -0,0 +1,74 @@
+package com.guapi_exe.benchmark;
+
+import com.guapi_exe.export.PngCompression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PNG encoding of an atlas-like image with each compression preset against ImageIO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PngEncodeBenchmark {
+
+    @Param({"512", "2048", "4096"})
+    public int size;
+
+    @Param({"FAST", "BALANCED", "SMALLEST"})
+    public PngCompression compression;
+
+    private BufferedImage image;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 16x16 tiles of flat-ish colors with noise and transparent gaps, like a texture atlas
+        Random random = new Random(42);
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int tileY = 0; tileY < size; tileY += 16) {
+            for (int tileX = 0; tileX < size; tileX += 16) {
+                if (random.nextInt(10) == 0) continue;
+                int base = random.nextInt() | 0xFF000000;
+                for (int y = tileY; y < tileY + 16; y++) {
+                    for (int x = tileX; x < tileX + 16; x++) {
+                        image.setRGB(x, y, base ^ (random.nextInt(8) * 0x010101));
+                    }
+                }
+            }
+        }
+        output = File.createTempFile("png-benchmark", ".png");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.delete();
+    }
+
+    @Benchmark
+    public long encoder() throws IOException {
+        compression.getEncoder().write(image, output);
+        return output.length();
+    }
+
+    @Benchmark
+    public long imageIO() throws IOException {
+        ImageIO.write(image, "png", output);
+        return output.length();
+    }
+}
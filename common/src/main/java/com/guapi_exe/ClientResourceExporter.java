@@ -1,10 +1,14 @@
 package com.guapi_exe;
 
 import com.guapi_exe.export.AtlasGenerator;
+import com.guapi_exe.export.ExportManifest;
+import com.guapi_exe.export.ExportMetrics;
+import com.guapi_exe.export.ExportSettings;
 import com.guapi_exe.export.IconExporterScreen;
 import com.guapi_exe.export.ModelExporter;
-import com.guapi_exe.export.TextureEntry;
+import com.guapi_exe.export.TextureRegistry;
 import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.ResourceIndex;
 import com.guapi_exe.util.TextureUtils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -15,37 +19,73 @@ import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.world.item.ItemStack;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Main client-side resource exporter.
  * Coordinates the export of block/item definitions, models, textures and icons.
- * Uses queue-based sequential processing to handle multiple namespaces correctly.
- * All rendering operations are scheduled on the render thread.
+ * Definitions, models, textures and atlases never touch GL, so they are exported for all
+ * namespaces concurrently on a worker pool. Icon rendering stays serialized: a queue walks
+ * the namespaces in order on the render thread, waiting for each namespace's data export
+ * before rendering its icons.
+ * Each namespace keeps an {@link ExportManifest}; with incremental export enabled, stages
+ * whose input hashes match the previous run are skipped.
+ * Every stage is timed into an {@link ExportMetrics} report, written next to the namespace
+ * directories and summarized in chat once the run completes.
  */
 public class ClientResourceExporter {
 
     // Static state for queue-based processing
     private static Queue<String> pendingNamespaces = new LinkedList<>();
-    private static Map<ResourceLocation, Resource> currentBlockStates;
-    private static Map<ResourceLocation, Resource> currentBlockModels;
-    private static Map<ResourceLocation, Resource> currentItemModels;
-    private static Map<ResourceLocation, Resource> currentBlockTextures;
-    private static Map<ResourceLocation, Resource> currentItemTextures;
+    private static ResourceIndex currentBlockStates;
+    private static ResourceIndex currentBlockModels;
+    private static ResourceIndex currentItemModels;
+    private static ResourceIndex currentBlockTextures;
+    private static ResourceIndex currentItemTextures;
     private static File currentBaseExportDir;
     private static Consumer<Component> currentFeedback;
+    private static ExecutorService exportExecutor;
+    // Bounds how many namespaces hold an atlas page in memory at once
+    private static Semaphore atlasPermits;
+    private static Map<String, CompletableFuture<NamespaceResult>> namespaceExports = new HashMap<>();
     private static int totalNamespaces;
     private static int processedNamespaces;
+    private static ExportMetrics currentMetrics;
+    // Set on the render thread from the start of an export until its last namespace is done
+    private static boolean exporting;
 
     private ClientResourceExporter() {
         // Utility class, no instantiation
     }
 
+    /**
+     * Outcome of a namespace's data export.
+     */
+    private static final class NamespaceResult {
+        private final ExportManifest manifest;
+        private final String iconsHash;
+        private final boolean iconsCurrent;
+
+        private NamespaceResult(ExportManifest manifest, String iconsHash, boolean iconsCurrent) {
+            this.manifest = manifest;
+            this.iconsHash = iconsHash;
+            this.iconsCurrent = iconsCurrent;
+        }
+    }
+
     /**
      * Export resources for one or all namespaces.
-     * Uses queue-based sequential processing to ensure each mod's atlas is generated correctly.
-     * All operations are scheduled on the render thread to avoid thread issues.
+     * Non-render work runs in parallel on the export pool; icon rendering is queued
+     * per namespace on the render thread.
      *
      * @param namespaceFilter If non-null, only export for this namespace
      * @param feedback        Consumer for progress messages
@@ -55,29 +95,52 @@ public class ClientResourceExporter {
         Minecraft.getInstance().execute(() -> doExport(namespaceFilter, feedback));
     }
 
+    /**
+     * Whether a resource reload must be refused because an export is running; tells the player if so.
+     * A reload closes the packs the export workers are still reading from.
+     * Must be called on the render thread.
+     */
+    public static boolean isReloadBlocked() {
+        if (!exporting) {
+            return false;
+        }
+        ExporterLogger.warn("Refusing resource reload while an export is running");
+        currentFeedback.accept(Component.literal("Resources cannot be reloaded while an export is running"));
+        return true;
+    }
+
     /**
      * Internal export method - must be called on render thread.
+     * The resource manager is read here once and handed to the workers; reloads are refused until the export ends.
      */
     private static void doExport(String namespaceFilter, Consumer<Component> feedback) {
+        if (exporting) {
+            feedback.accept(Component.literal("An export is already running"));
+            return;
+        }
         Minecraft mc = Minecraft.getInstance();
         ResourceManager manager = mc.getResourceManager();
         currentBaseExportDir = new File(mc.gameDirectory, "resource_exports");
         currentFeedback = feedback;
+        currentMetrics = new ExportMetrics();
 
         ExporterLogger.info("Starting resource export...");
         feedback.accept(Component.literal("Scanning resources..."));
+        ExportMetrics.Stage scanning = currentMetrics.forNamespace(null).begin(ExportMetrics.STAGE_SCANNING);
 
-        // Collect all resource maps
-        currentBlockStates = manager.listResources("blockstates",
-                l -> l.getPath().endsWith(".json"));
-        currentBlockModels = manager.listResources("models",
-                l -> !l.getPath().contains("models/item/"));
-        currentItemModels = manager.listResources("models/item",
-                l -> true);
-        currentBlockTextures = manager.listResources("textures/block",
-                l -> l.getPath().endsWith(".png"));
-        currentItemTextures = manager.listResources("textures/item",
-                l -> l.getPath().endsWith(".png"));
+        // Collect all resource maps, grouped by namespace and kind once up front
+        currentBlockStates = ResourceIndex.build(manager.listResources("blockstates",
+                l -> l.getPath().endsWith(".json")));
+        currentBlockModels = ResourceIndex.build(manager.listResources("models",
+                l -> !l.getPath().contains("models/item/")));
+        currentItemModels = ResourceIndex.build(manager.listResources("models/item",
+                l -> true));
+        currentBlockTextures = ResourceIndex.build(manager.listResources("textures/block",
+                l -> l.getPath().endsWith(".png") || l.getPath().endsWith(".png.mcmeta")));
+        currentItemTextures = ResourceIndex.build(manager.listResources("textures/item",
+                l -> l.getPath().endsWith(".png") || l.getPath().endsWith(".png.mcmeta")));
+        scanning.items(currentBlockStates.size() + currentBlockModels.size() + currentItemModels.size()
+                + currentBlockTextures.size() + currentItemTextures.size()).end();
 
         // Determine namespaces to export
         Set<String> namespaces = new LinkedHashSet<>();
@@ -92,18 +155,41 @@ public class ClientResourceExporter {
         totalNamespaces = namespaces.size();
         processedNamespaces = 0;
 
+        // Start the non-render export of every namespace at once
+        exporting = true;
+        int threads = ExportSettings.getInstance().getExportThreads();
+        AtomicInteger threadIndex = new AtomicInteger();
+        exportExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Resource Export #" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Chat messages must be sent from the render thread
+        Consumer<Component> workerFeedback = component -> mc.execute(() -> feedback.accept(component));
+        atlasPermits = new Semaphore(ExportSettings.getInstance().getAtlasThreads());
+        namespaceExports = new HashMap<>();
+        for (String namespace : namespaces) {
+            namespaceExports.put(namespace, CompletableFuture.supplyAsync(
+                    () -> exportNamespaceData(namespace, manager, workerFeedback), exportExecutor));
+        }
+        ExporterLogger.info("Exporting {} namespaces on {} threads", namespaces.size(), threads);
+
         // Start processing the first namespace
         processNextNamespace();
     }
 
     /**
      * Process the next namespace in the queue.
+     * Waits for the namespace's data export without blocking, then renders its icons.
      */
     private static void processNextNamespace() {
         if (pendingNamespaces.isEmpty()) {
             // All namespaces processed
+            exportExecutor.shutdown();
+            exporting = false;
             ExporterLogger.info("Resource export complete!");
             currentFeedback.accept(Component.literal("Export complete!"));
+            reportMetrics();
             return;
         }
 
@@ -114,57 +200,301 @@ public class ClientResourceExporter {
         currentFeedback.accept(Component.literal("Exporting mod: " + namespace + " (" + processedNamespaces + "/" + totalNamespaces + ")"));
 
         File modExportDir = new File(currentBaseExportDir, namespace);
-        ResourceManager manager = Minecraft.getInstance().getResourceManager();
+        namespaceExports.remove(namespace).whenComplete((result, error) -> Minecraft.getInstance().execute(() -> {
+            if (error != null || result == null) {
+                // Continue to next namespace even if this one failed
+                processNextNamespace();
+                return;
+            }
+            if (result.iconsCurrent) {
+                currentFeedback.accept(Component.literal("Icons for " + namespace + " are up to date"));
+                processNextNamespace();
+                return;
+            }
+
+            // Render icons - this is async (uses Screen), will call processNextNamespace when done
+            currentFeedback.accept(Component.literal("Rendering icons for " + namespace + "..."));
+            ExportMetrics.NamespaceMetrics metrics = currentMetrics.forNamespace(namespace);
+            exportRenderedIcons(modExportDir, namespace, currentFeedback, metrics, () -> {
+                // Only record the icons once they have actually been written
+                result.manifest.putStage(ExportManifest.STAGE_ICONS, result.iconsHash);
+                saveManifest(result.manifest, modExportDir, namespace);
+                processNextNamespace();
+            });
+        }));
+    }
+
+    /**
+     * Export definitions, models, textures, atlas and metadata of one namespace.
+     * Runs on the export pool and must not touch GL or read the game's resource manager, only the one passed in.
+     * With incremental export on, every source resource is hashed into a new manifest; stages whose
+     * combined hash matches the previous manifest and whose output is still on disk keep that output.
+     *
+     * @return The export result, or null if the namespace failed
+     */
+    private static NamespaceResult exportNamespaceData(String namespace, ResourceManager manager,
+                                                       Consumer<Component> feedback) {
+        File modExportDir = new File(currentBaseExportDir, namespace);
+        ExportSettings settings = ExportSettings.getInstance();
+        ExportMetrics.NamespaceMetrics metrics = currentMetrics.forNamespace(namespace);
 
         try {
-            // Export definitions, models, and textures synchronously
-            ModelExporter.exportBlockDefinitions(currentBlockStates, modExportDir, namespace);
-            ModelExporter.exportBlockModels(currentBlockModels, modExportDir, namespace);
-            ModelExporter.exportItemModels(currentItemModels, modExportDir, namespace);
+            boolean incremental = settings.isIncrementalExport();
+            // Read with incremental export off too, to delete files this export no longer writes;
+            // its hashes are then never compared as the new ones are null
+            ExportManifest previous = ExportManifest.load(modExportDir);
+            ExportManifest manifest = new ExportManifest(ModelExporter.getModVersion(namespace));
+            int skipped = 0;
+
+            // Export definitions and models
+            ExportMetrics.Stage definitions = metrics.begin(ExportMetrics.STAGE_DEFINITIONS)
+                    .items(currentBlockStates.get(namespace).size());
+            if (!exportResourceStage(ExportManifest.STAGE_BLOCK_DEFINITIONS, currentBlockStates.get(namespace),
+                    modExportDir, previous, manifest, incremental,
+                    definitions, resources ->
+                            ModelExporter.exportBlockDefinitions(resources, modExportDir, namespace, definitions))) {
+                skipped++;
+            }
+            definitions.end();
+
+            ExportMetrics.Stage models = metrics.begin(ExportMetrics.STAGE_MODELS)
+                    .items(currentBlockModels.get(namespace).size() + currentItemModels.get(namespace).size());
+            if (!exportResourceStage(ExportManifest.STAGE_BLOCK_MODELS, currentBlockModels.get(namespace),
+                    modExportDir, previous, manifest, incremental,
+                    models, resources -> ModelExporter.exportBlockModels(resources, modExportDir, namespace, models),
+                    settings.isBinaryMeshes())) {
+                skipped++;
+            }
+            if (!exportResourceStage(ExportManifest.STAGE_ITEM_MODELS, currentItemModels.get(namespace),
+                    modExportDir, previous, manifest, incremental,
+                    models, resources -> ModelExporter.exportItemModels(resources, modExportDir, namespace, models),
+                    settings.isBinaryMeshes())) {
+                skipped++;
+            }
+            models.end();
+
+            // Registry-derived lists are cheap and not covered by resource hashes
             ModelExporter.exportOpaqueBlocks(modExportDir, namespace);
 
             // Collect and export textures
-            List<TextureEntry> allTextures = new ArrayList<>();
-            TextureUtils.collectTextures(currentBlockTextures, namespace, "textures/", allTextures);
-            TextureUtils.collectTextures(currentItemTextures, namespace, "textures/", allTextures);
-            TextureUtils.collectMtlTextures(manager, currentBlockModels, namespace, allTextures);
-            TextureUtils.collectMtlTextures(manager, currentItemModels, namespace, allTextures);
+            ExportMetrics.Stage textures = metrics.begin(ExportMetrics.STAGE_TEXTURES);
+            TextureRegistry allTextures = new TextureRegistry();
+            // Each texture is read once and shared between the atlas and the raw export
+            Map<ResourceLocation, byte[]> blockTextures = TextureUtils.readTextures(
+                    currentBlockTextures.get(namespace, ResourceIndex.Kind.PNG));
+            Map<ResourceLocation, byte[]> itemTextures = TextureUtils.readTextures(
+                    currentItemTextures.get(namespace, ResourceIndex.Kind.PNG));
+            textures.read(totalSize(blockTextures) + totalSize(itemTextures));
+            if (incremental) {
+                manifest.hashLoaded(blockTextures);
+                manifest.hashLoaded(itemTextures);
+            }
+            TextureUtils.collectTextures(blockTextures, currentBlockTextures.get(namespace, ResourceIndex.Kind.MCMETA),
+                    "textures/", allTextures);
+            TextureUtils.collectTextures(itemTextures, currentItemTextures.get(namespace, ResourceIndex.Kind.MCMETA),
+                    "textures/", allTextures);
+            TextureUtils.collectMtlTextures(manager, currentBlockModels.get(namespace, ResourceIndex.Kind.MTL), namespace, allTextures);
+            TextureUtils.collectMtlTextures(manager, currentItemModels.get(namespace, ResourceIndex.Kind.MTL), namespace, allTextures);
 
-            // Export raw textures to assets directory
-            TextureUtils.exportRawTextures(currentBlockTextures, modExportDir, namespace, "block");
-            TextureUtils.exportRawTextures(currentItemTextures, modExportDir, namespace, "item");
+            // Export raw textures to assets directory, keeping files whose source is unchanged
+            Predicate<ResourceLocation> unchanged = location ->
+                    previous.isResourceCurrent(location, manifest.getResourceHash(location));
+            textures.written(TextureUtils.exportRawTextures(blockTextures, modExportDir, namespace, "block", unchanged));
+            textures.written(TextureUtils.exportRawTextures(itemTextures, modExportDir, namespace, "item", unchanged));
+            textures.items(allTextures.size()).end();
 
             // Generate texture atlas in assets directory
-            if (!allTextures.isEmpty()) {
-                File atlasDir = new File(modExportDir, "assets/atlas");
+            String texturesHash = allTextures.getContentHash();
+            String atlasHash = !incremental ? null : ExportManifest.combine(texturesHash, settings.getPackingAlgorithm(),
+                    settings.getPackingHeuristic(), settings.isPowerOfTwoAtlas(), settings.getMaxAtlasPageSize(),
+                    settings.getPngCompression(), settings.getAtlasMipLevels());
+            File atlasDir = new File(modExportDir, "assets/atlas");
+            if (previous.isStageCurrent(ExportManifest.STAGE_ATLAS, atlasHash)
+                    && atlasOutputExists(atlasDir, settings.getAtlasMipLevels())) {
+                metrics.skip(ExportMetrics.STAGE_ATLAS_PACKING);
+                metrics.skip(ExportMetrics.STAGE_ATLAS_ENCODING);
+                skipped++;
+            } else if (!allTextures.isEmpty()) {
                 atlasDir.mkdirs();
 
-                AtlasGenerator.generateAtlas(allTextures, atlasDir, "atlas.png", "data.min.json");
-                currentFeedback.accept(Component.literal("Generated texture atlas with " + allTextures.size() + " textures"));
+                atlasPermits.acquire();
+                try {
+                    AtlasGenerator.generateAtlas(allTextures.getTextures(), allTextures.getAliases(),
+                            atlasDir, "atlas.png", "data.min.json", metrics);
+                } finally {
+                    atlasPermits.release();
+                }
+                feedback.accept(Component.literal("Generated texture atlas with " + allTextures.size() + " textures for " + namespace));
             }
+            manifest.putStage(ExportManifest.STAGE_ATLAS, atlasHash);
 
             // Export metadata
-            ModelExporter.exportMetadata(modExportDir, namespace);
+            ExportMetrics.Stage metadata = metrics.begin(ExportMetrics.STAGE_METADATA);
+            ModelExporter.exportMetadata(modExportDir, namespace, metadata);
+            metadata.end();
 
-            // Render icons - this is async (uses Screen), will call processNextNamespace when done
-            currentFeedback.accept(Component.literal("Rendering icons for " + namespace + "..."));
-            exportRenderedIcons(modExportDir, namespace, currentFeedback);
+            // Icons depend on the models and textures as well as on mod code, hence the version
+            String iconsHash = !incremental ? null : ExportManifest.combine(manifest.getModVersion(),
+                    manifest.getStage(ExportManifest.STAGE_BLOCK_DEFINITIONS),
+                    manifest.getStage(ExportManifest.STAGE_BLOCK_MODELS),
+                    manifest.getStage(ExportManifest.STAGE_ITEM_MODELS), texturesHash, settings.getIconSize(), settings.getRenderMode(),
+                    settings.getSupersample(), settings.isIconMatting(), settings.getPngCompression());
+            boolean iconsCurrent = previous.isStageCurrent(ExportManifest.STAGE_ICONS, iconsHash)
+                    && new File(modExportDir, "icons/data.min.json").isFile();
+            if (iconsCurrent) {
+                manifest.putStage(ExportManifest.STAGE_ICONS, iconsHash);
+                metrics.skip(ExportMetrics.STAGE_ICON_RENDER);
+                skipped++;
+            }
+            saveManifest(manifest, modExportDir, namespace);
 
+            if (skipped > 0) {
+                ExporterLogger.info("Skipped {} unchanged export stages for {}", skipped, namespace);
+            }
+            return new NamespaceResult(manifest, iconsHash, iconsCurrent);
         } catch (Exception e) {
             ExporterLogger.error("Failed to export mod {}: {}", namespace, e.getMessage(), e);
-            // Continue to next namespace even if this one failed
-            processNextNamespace();
+            return null;
+        }
+    }
+
+    /**
+     * Exports one stage built from resources.
+     */
+    @FunctionalInterface
+    private interface ResourceStage {
+        /**
+         * @return Files written
+         */
+        List<File> export(Map<ResourceLocation, Resource> resources) throws IOException;
+    }
+
+    /**
+     * Run a stage built from resources unless it is unchanged since the previous export.
+     * Every resource is read once: with incremental export off nothing is hashed; without a previous
+     * hash for the stage there is nothing to compare, so the hashes are taken from the export reading
+     * the resources; otherwise the resources are read and hashed first and, if they changed, exported
+     * from the bytes already read. The files the stage writes are recorded in the manifest: an unchanged
+     * stage is only skipped if every one of them is still on disk (a stage that wrote none is complete),
+     * and files of the previous export that the stage no longer writes are deleted.
+     * The export adds the bytes it reads and writes to the metrics stage; when the stage is skipped,
+     * only the bytes read for hashing are added.
+     *
+     * @param modExportDir Namespace export directory the recorded files are relative to
+     * @param options      Settings the output depends on besides the resources
+     * @return true if the stage was exported, false if it was skipped
+     */
+    private static boolean exportResourceStage(String stage, Map<ResourceLocation, Resource> resources,
+                                               File modExportDir, ExportManifest previous, ExportManifest manifest,
+                                               boolean incremental, ExportMetrics.Stage metrics, ResourceStage export,
+                                               Object... options) throws IOException {
+        if (!incremental) {
+            recordOutputs(stage, export.export(resources), modExportDir, previous, manifest);
+            return true;
+        }
+        if (previous.getStage(stage) == null) {
+            recordOutputs(stage, export.export(manifest.recordResources(resources)), modExportDir, previous, manifest);
+            long hashed = manifest.getBytesHashed();
+            manifest.hashUnrecorded(resources);
+            metrics.read(manifest.getBytesHashed() - hashed);
+            manifest.putStage(stage, stageHash(manifest.combinedHash(resources), options));
+            return true;
+        }
+
+        long hashed = manifest.getBytesHashed();
+        Map<ResourceLocation, Resource> loaded = manifest.hashResources(resources);
+        String hash = stageHash(manifest.combinedHash(resources), options);
+        manifest.putStage(stage, hash);
+        if (previous.isStageCurrent(stage, hash) && previous.outputsExist(stage, modExportDir)) {
+            manifest.putOutputs(stage, previous.getOutputs(stage));
+            metrics.read(manifest.getBytesHashed() - hashed);
+            return false;
+        }
+        recordOutputs(stage, export.export(loaded), modExportDir, previous, manifest);
+        return true;
+    }
+
+    /**
+     * Record the files a stage wrote, relative to the namespace export directory, and delete the files
+     * the previous export of the stage wrote that it no longer writes, such as meshes once binary meshes are off.
+     */
+    private static void recordOutputs(String stage, List<File> written, File modExportDir,
+                                      ExportManifest previous, ExportManifest manifest) {
+        Path root = modExportDir.toPath();
+        List<String> files = new ArrayList<>();
+        for (File file : written) {
+            files.add(root.relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+        }
+        manifest.putOutputs(stage, files);
+
+        List<String> stale = previous.getOutputs(stage);
+        if (stale == null) return;
+        for (String file : stale) {
+            File output = new File(modExportDir, file);
+            if (!files.contains(file) && output.isFile() && !output.delete()) {
+                ExporterLogger.warn("Could not delete stale export file {}", output);
+            }
+        }
+    }
+
+    private static String stageHash(String resourcesHash, Object[] options) {
+        Object[] parts = Arrays.copyOf(options, options.length + 1);
+        parts[options.length] = resourcesHash;
+        return ExportManifest.combine(parts);
+    }
+
+    private static long totalSize(Map<ResourceLocation, byte[]> loaded) {
+        long size = 0;
+        for (byte[] data : loaded.values()) {
+            size += data.length;
+        }
+        return size;
+    }
+
+    /**
+     * Whether the atlas JSON of every level is still on disk.
+     */
+    private static boolean atlasOutputExists(File atlasDir, int mipLevels) {
+        for (int level = 0; level <= mipLevels; level++) {
+            if (!new File(atlasDir, AtlasGenerator.mipFileName("data.min.json", level)).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void saveManifest(ExportManifest manifest, File modExportDir, String namespace) {
+        try {
+            manifest.save(modExportDir);
+        } catch (Exception e) {
+            ExporterLogger.warn("Failed to write export manifest for {}: {}", namespace, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the metrics report of the finished run and summarize it in chat.
+     */
+    private static void reportMetrics() {
+        try {
+            currentMetrics.writeReport(currentBaseExportDir);
+        } catch (Exception e) {
+            ExporterLogger.warn("Failed to write export report: {}", e.getMessage());
+        }
+        for (String line : currentMetrics.summarize(3)) {
+            ExporterLogger.info(line);
+            currentFeedback.accept(Component.literal(line));
         }
     }
 
     /**
      * Export rendered icons for items in a namespace.
-     * Opens a screen to render items, then calls processNextNamespace when done.
+     * Opens a screen to render items, then runs the completion callback when done.
      */
-    private static void exportRenderedIcons(File exportDir, String namespace, Consumer<Component> feedback) {
+    private static void exportRenderedIcons(File exportDir, String namespace, Consumer<Component> feedback,
+                                            ExportMetrics.NamespaceMetrics metrics, Runnable onComplete) {
         Minecraft mc = Minecraft.getInstance();
 
-        // Collect all items in this namespace
+        // Collect all items in this namespace, sorted by name so atlas cells do not depend on registry order
         List<ItemStack> itemsToExport = new ArrayList<>();
         BuiltInRegistries.ITEM.forEach(item -> {
             ResourceLocation id = BuiltInRegistries.ITEM.getKey(item);
@@ -172,11 +502,12 @@ public class ClientResourceExporter {
                 itemsToExport.add(new ItemStack(item));
             }
         });
+        itemsToExport.sort(Comparator.comparing(stack -> BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath()));
 
         if (itemsToExport.isEmpty()) {
             feedback.accept(Component.literal("No items to render for " + namespace));
             // Continue to next namespace
-            processNextNamespace();
+            onComplete.run();
             return;
         }
 
@@ -186,7 +517,8 @@ public class ClientResourceExporter {
                 exportDir,
                 namespace,
                 feedback,
-                ClientResourceExporter::processNextNamespace  // Callback when done
+                metrics,
+                onComplete  // Callback when done
         );
         mc.setScreen(screen);
     }
@@ -1,6 +1,12 @@
 package com.guapi_exe;
 
 import com.guapi_exe.export.ExportSettings;
+import com.guapi_exe.export.IconRenderMode;
+import com.guapi_exe.export.AnimationMode;
+import com.guapi_exe.export.PngCompression;
+import com.guapi_exe.export.packing.MaxRectsPacker;
+import com.guapi_exe.export.packing.PackingAlgorithm;
+import com.mojang.brigadier.arguments.BoolArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import dev.architectury.event.events.common.CommandRegistrationEvent;
@@ -24,7 +30,24 @@ public final class ResoureExporterMod {
                         ExportSettings settings = ExportSettings.getInstance();
                         ctx.getSource().sendSuccess(() -> Component.literal(
                                 "Export Settings: iconSize=" + settings.getIconSize() +
-                                ", itemsPerFrame=" + settings.getItemsPerFrame()
+                                ", itemsPerFrame=" + settings.getItemsPerFrame() +
+                                ", budget=" + settings.getFrameBudgetMs() + "ms" +
+                                ", mode=" + settings.getRenderMode().name().toLowerCase() +
+                                ", batch=" + settings.getBatchGridSize() +
+                                ", matte=" + settings.isIconMatting() +
+                                ", supersample=" + settings.getSupersample() +
+                                ", encoders=" + settings.getEncodeThreads() +
+                                ", packing=" + settings.getPackingAlgorithm().name().toLowerCase() +
+                                ", heuristic=" + settings.getPackingHeuristic().getShortName() +
+                                ", pot=" + settings.isPowerOfTwoAtlas() +
+                                ", pagesize=" + settings.getMaxAtlasPageSize() +
+                                ", mips=" + settings.getAtlasMipLevels() +
+                                ", png=" + settings.getPngCompression().name().toLowerCase() +
+                                ", animation=" + settings.getAnimationMode().name().toLowerCase() +
+                                ", threads=" + settings.getExportThreads() +
+                                ", atlasthreads=" + settings.getAtlasThreads() +
+                                ", binarymesh=" + settings.isBinaryMeshes() +
+                                ", incremental=" + settings.isIncrementalExport()
                         ), false);
                         return 1;
                     })
@@ -32,6 +55,13 @@ public final class ResoureExporterMod {
                             .then(Commands.argument("size", IntegerArgumentType.integer(16, 512))
                                     .executes(ctx -> {
                                         int size = IntegerArgumentType.getInteger(ctx, "size");
+                                        int pageSize = ExportSettings.getInstance().getMaxAtlasPageSize();
+                                        if (size > pageSize) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Icon size cannot exceed the atlas page size " + pageSize
+                                            ));
+                                            return 0;
+                                        }
                                         ExportSettings.getInstance().setIconSize(size);
                                         ctx.getSource().sendSuccess(() -> Component.literal(
                                                 "Icon size set to " + size
@@ -45,6 +75,237 @@ public final class ResoureExporterMod {
                                         ExportSettings.getInstance().setItemsPerFrame(count);
                                         ctx.getSource().sendSuccess(() -> Component.literal(
                                                 "Items per frame set to " + count
+                                                        + (ExportSettings.getInstance().getFrameBudgetMs() > 0
+                                                        ? " (only used while the frame budget is 0)" : "")
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("budget")
+                            .then(Commands.argument("ms", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_FRAME_BUDGET_MS, ExportSettings.MAX_FRAME_BUDGET_MS))
+                                    .executes(ctx -> {
+                                        int ms = IntegerArgumentType.getInteger(ctx, "ms");
+                                        ExportSettings.getInstance().setFrameBudgetMs(ms);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(ms > 0
+                                                ? "Icon render budget set to " + ms + " ms per frame"
+                                                : "Icon render budget disabled, using items per frame"
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("mode")
+                            .then(Commands.argument("mode", StringArgumentType.word())
+                                    .executes(ctx -> {
+                                        String name = StringArgumentType.getString(ctx, "mode");
+                                        IconRenderMode mode = IconRenderMode.byName(name);
+                                        if (mode == null) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unknown render mode: " + name + " (use offscreen or screenshot)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setRenderMode(mode);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Render mode set to " + mode.name().toLowerCase()
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("batch")
+                            .then(Commands.argument("size", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_BATCH_GRID_SIZE, ExportSettings.MAX_BATCH_GRID_SIZE))
+                                    .executes(ctx -> {
+                                        int size = IntegerArgumentType.getInteger(ctx, "size");
+                                        ExportSettings.getInstance().setBatchGridSize(size);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Batch grid size set to " + size + "x" + size
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("matte")
+                            .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                    .executes(ctx -> {
+                                        boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                                        ExportSettings.getInstance().setIconMatting(enabled);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Black/white icon matting " + (enabled ? "enabled" : "disabled")
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("supersample")
+                            .then(Commands.argument("factor", IntegerArgumentType.integer(
+                                            ExportSettings.DEFAULT_SUPERSAMPLE, ExportSettings.MAX_SUPERSAMPLE))
+                                    .executes(ctx -> {
+                                        int factor = IntegerArgumentType.getInteger(ctx, "factor");
+                                        if (Integer.bitCount(factor) != 1) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unsupported supersampling factor: " + factor + " (use 1, 2 or 4)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setSupersample(factor);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Icon supersampling set to " + factor + "x"
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("encoders")
+                            .then(Commands.argument("threads", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_ENCODE_THREADS, ExportSettings.MAX_ENCODE_THREADS))
+                                    .executes(ctx -> {
+                                        int threads = IntegerArgumentType.getInteger(ctx, "threads");
+                                        ExportSettings.getInstance().setEncodeThreads(threads);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Icon encoder threads set to " + threads
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("packing")
+                            .then(Commands.argument("algorithm", StringArgumentType.word())
+                                    .executes(ctx -> {
+                                        String name = StringArgumentType.getString(ctx, "algorithm");
+                                        PackingAlgorithm algorithm = PackingAlgorithm.byName(name);
+                                        if (algorithm == null) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unknown packing algorithm: " + name + " (use maxrects, skyline or shelf)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setPackingAlgorithm(algorithm);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Packing algorithm set to " + algorithm.name().toLowerCase()
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("heuristic")
+                            .then(Commands.argument("heuristic", StringArgumentType.word())
+                                    .executes(ctx -> {
+                                        String name = StringArgumentType.getString(ctx, "heuristic");
+                                        MaxRectsPacker.Heuristic heuristic = MaxRectsPacker.Heuristic.byName(name);
+                                        if (heuristic == null) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unknown heuristic: " + name + " (use bssf, blsf, baf or bl)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setPackingHeuristic(heuristic);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "MaxRects heuristic set to " + heuristic.getShortName()
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("pot")
+                            .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                    .executes(ctx -> {
+                                        boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                                        ExportSettings.getInstance().setPowerOfTwoAtlas(enabled);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Power-of-two atlas size " + (enabled ? "enabled" : "disabled")
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("pagesize")
+                            .then(Commands.argument("size", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_ATLAS_PAGE_SIZE, ExportSettings.MAX_ATLAS_PAGE_SIZE))
+                                    .executes(ctx -> {
+                                        ExportSettings settings = ExportSettings.getInstance();
+                                        int requested = IntegerArgumentType.getInteger(ctx, "size");
+                                        if (Integer.highestOneBit(requested) < settings.getIconSize()) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Atlas page size cannot be smaller than the icon size "
+                                                            + settings.getIconSize()
+                                            ));
+                                            return 0;
+                                        }
+                                        settings.setMaxAtlasPageSize(requested);
+                                        int size = settings.getMaxAtlasPageSize();
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Maximum atlas page size set to " + size + "x" + size
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("mips")
+                            .then(Commands.argument("levels", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_ATLAS_MIP_LEVELS, ExportSettings.MAX_ATLAS_MIP_LEVELS))
+                                    .executes(ctx -> {
+                                        int levels = IntegerArgumentType.getInteger(ctx, "levels");
+                                        ExportSettings.getInstance().setAtlasMipLevels(levels);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Downscaled atlas levels set to " + levels
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("png")
+                            .then(Commands.argument("compression", StringArgumentType.word())
+                                    .executes(ctx -> {
+                                        String name = StringArgumentType.getString(ctx, "compression");
+                                        PngCompression compression = PngCompression.byName(name);
+                                        if (compression == null) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unknown PNG compression: " + name + " (use fast, balanced or smallest)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setPngCompression(compression);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "PNG compression set to " + compression.name().toLowerCase()
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("animation")
+                            .then(Commands.argument("mode", StringArgumentType.word())
+                                    .executes(ctx -> {
+                                        String name = StringArgumentType.getString(ctx, "mode");
+                                        AnimationMode mode = AnimationMode.byName(name);
+                                        if (mode == null) {
+                                            ctx.getSource().sendFailure(Component.literal(
+                                                    "Unknown animation mode: " + name + " (use first_frame, frame_sheet or strip)"
+                                            ));
+                                            return 0;
+                                        }
+                                        ExportSettings.getInstance().setAnimationMode(mode);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Animated textures stored as " + mode.name().toLowerCase()
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("threads")
+                            .then(Commands.argument("threads", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_EXPORT_THREADS, ExportSettings.MAX_EXPORT_THREADS))
+                                    .executes(ctx -> {
+                                        int threads = IntegerArgumentType.getInteger(ctx, "threads");
+                                        ExportSettings.getInstance().setExportThreads(threads);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Export threads set to " + threads
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("atlasthreads")
+                            .then(Commands.argument("threads", IntegerArgumentType.integer(
+                                            ExportSettings.MIN_ATLAS_THREADS, ExportSettings.MAX_ATLAS_THREADS))
+                                    .executes(ctx -> {
+                                        int threads = IntegerArgumentType.getInteger(ctx, "threads");
+                                        ExportSettings.getInstance().setAtlasThreads(threads);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Concurrent atlas compositions set to " + threads
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("binarymesh")
+                            .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                    .executes(ctx -> {
+                                        boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                                        ExportSettings.getInstance().setBinaryMeshes(enabled);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Binary mesh export " + (enabled ? "enabled" : "disabled")
+                                        ), false);
+                                        return 1;
+                                    })))
+                    .then(Commands.literal("incremental")
+                            .then(Commands.argument("enabled", BoolArgumentType.bool())
+                                    .executes(ctx -> {
+                                        boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                                        ExportSettings.getInstance().setIncrementalExport(enabled);
+                                        ctx.getSource().sendSuccess(() -> Component.literal(
+                                                "Incremental export " + (enabled ? "enabled" : "disabled")
                                         ), false);
                                         return 1;
                                     })))
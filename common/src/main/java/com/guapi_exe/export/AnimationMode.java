@@ -0,0 +1,28 @@
+package com.guapi_exe.export;
+
+/**
+ * How textures animated through a .png.mcmeta file are stored in the texture atlas.
+ */
+public enum AnimationMode {
+    /** Only the frame shown first; the atlas entry is as large as one frame */
+    FIRST_FRAME,
+
+    /** Every distinct frame, regrouped into a compact grid, with frame timing in the atlas JSON */
+    FRAME_SHEET,
+
+    /** The source image as it is, every frame in its original strip */
+    STRIP;
+
+    /**
+     * Look up a mode by its case-insensitive name.
+     * @return The matching mode, or null if none matches
+     */
+    public static AnimationMode byName(String name) {
+        for (AnimationMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -2,23 +2,38 @@ package com.guapi_exe.export;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.guapi_exe.export.packing.PackResult;
+import com.guapi_exe.export.packing.PackingStrategy;
 import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.PixelBuffer;
+import com.guapi_exe.util.PngEncoder;
 
-import javax.imageio.ImageIO;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for generating texture atlases from multiple images.
+ * Placement is delegated to the {@link PackingStrategy} selected in {@link ExportSettings}.
+ * Textures that do not fit into one page of the configured maximum size spill over
+ * into further pages (atlas_0.png, atlas_1.png, ...); each JSON entry records its page.
+ * Packing only needs texture sizes. Pages are composed off-heap in a {@link PixelBuffer}:
+ * each texture is decoded, copied in row by row straight from the decoder's memory and freed
+ * before the next one. Every page and level is freed as soon as it has been written.
+ * The texture atlas can also be written at the downscaled levels set in {@link ExportSettings}
+ * (atlas_mip1.png at half size, ...), each filtered from the level above, with matching JSON.
  */
 public final class AtlasGenerator {
     private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
-    private static final int MAX_ATLAS_WIDTH = 4096;
 
     private AtlasGenerator() {
         // Utility class, no instantiation
@@ -26,6 +41,9 @@ public final class AtlasGenerator {
 
     /**
      * Generate an atlas from a list of textures.
+     * Each JSON entry is [x, y, width, height, page]. For an animated texture the rectangle is its
+     * first frame; if more than one frame is kept, a sixth element {@code {"frames": [[x, y, ticks], ...]}}
+     * lists every frame in playback order, plus {@code "interpolate": true} if frames blend.
      *
      * @param textures  List of texture entries to pack
      * @param outputDir Output directory for atlas files
@@ -35,46 +53,50 @@ public final class AtlasGenerator {
      */
     public static void generateAtlas(List<TextureEntry> textures, File outputDir,
                                      String imageName, String jsonName) throws IOException {
+        generateAtlas(textures, Collections.emptyMap(), outputDir, imageName, jsonName);
+    }
+
+    /**
+     * Generate an atlas from a list of unique textures plus aliases sharing their regions.
+     *
+     * @param textures  List of texture entries to pack
+     * @param aliases   Extra keys mapped to the key of the texture whose region they reuse
+     * @param outputDir Output directory for atlas files
+     * @param imageName Name of the output atlas image
+     * @param jsonName  Name of the output JSON metadata file
+     * @throws IOException If writing fails
+     */
+    public static void generateAtlas(List<TextureEntry> textures, Map<String, String> aliases, File outputDir,
+                                     String imageName, String jsonName) throws IOException {
+        generateAtlas(textures, aliases, outputDir, imageName, jsonName, ExportMetrics.DISCARD);
+    }
+
+    /**
+     * Generate an atlas from a list of unique textures plus aliases sharing their regions,
+     * recording packing and encoding as separate stages.
+     *
+     * @param metrics Recorder of the namespace the atlas belongs to
+     */
+    public static void generateAtlas(List<TextureEntry> textures, Map<String, String> aliases, File outputDir,
+                                     String imageName, String jsonName,
+                                     ExportMetrics.NamespaceMetrics metrics) throws IOException {
         if (textures.isEmpty()) {
             ExporterLogger.debug("No textures to generate atlas");
             return;
         }
 
-        List<PackedTexture> packed = packTextures(textures);
-
-        int atlasWidth = MAX_ATLAS_WIDTH;
-        int atlasHeight = calculateAtlasHeight(packed);
-        if (atlasHeight == 0) atlasHeight = 1;
-
-        BufferedImage atlas = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = atlas.createGraphics();
-
-        JsonObject atlasJson = new JsonObject();
-
-        for (PackedTexture p : packed) {
-            g2d.drawImage(p.getEntry().getImage(), p.getX(), p.getY(), null);
-
-            com.google.gson.JsonArray rect = new com.google.gson.JsonArray();
-            rect.add(p.getX());
-            rect.add(p.getY());
-            rect.add(p.getEntry().getWidth());
-            rect.add(p.getEntry().getHeight());
-            atlasJson.add(p.getEntry().getKey(), rect);
-        }
-        g2d.dispose();
-
-        outputDir.mkdirs();
-        ImageIO.write(atlas, "png", new File(outputDir, imageName));
-
-        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outputDir, jsonName)), StandardCharsets.UTF_8)) {
-            GSON.toJson(atlasJson, writer);
+        generate(textures, aliases, outputDir, imageName, jsonName, false, metrics);
+        if (aliases.isEmpty()) {
+            ExporterLogger.info("Generated atlas with {} textures", textures.size());
+        } else {
+            ExporterLogger.info("Generated atlas with {} textures ({} duplicates share a region)",
+                    textures.size() + aliases.size(), aliases.size());
         }
-
-        ExporterLogger.info("Generated atlas with {} textures", textures.size());
     }
 
     /**
      * Generate an atlas with detailed position info (used for rendered icons).
+     * Each JSON entry is an object with x, y, w, h and page.
      */
     public static void generateAtlasDetailed(List<TextureEntry> textures, File outputDir,
                                               String imageName, String jsonName) throws IOException {
@@ -83,71 +105,285 @@ public final class AtlasGenerator {
             return;
         }
 
-        // Sort by height descending for better packing
-        textures.sort((a, b) -> Integer.compare(b.getHeight(), a.getHeight()));
+        generate(textures, Collections.emptyMap(), outputDir, imageName, jsonName, true, ExportMetrics.DISCARD);
+        ExporterLogger.info("Generated detailed atlas with {} textures", textures.size());
+    }
 
-        List<PackedTexture> packed = packTextures(textures);
+    /**
+     * File name of one atlas page. A single page keeps the plain image name;
+     * multiple pages are numbered, e.g. atlas.png becomes atlas_0.png, atlas_1.png, ...
+     */
+    public static String pageFileName(String imageName, int page, int pageCount) {
+        if (pageCount <= 1) return imageName;
 
-        int atlasWidth = MAX_ATLAS_WIDTH;
-        int atlasHeight = calculateAtlasHeight(packed);
+        int dot = imageName.lastIndexOf('.');
+        return dot < 0 ? imageName + "_" + page
+                : imageName.substring(0, dot) + "_" + page + imageName.substring(dot);
+    }
 
-        BufferedImage atlas = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = atlas.createGraphics();
+    /**
+     * Delete page images an earlier export left behind that this one did not overwrite:
+     * numbered pages from {@code pageCount} on, and the plain image unless there is exactly one page
+     * (or the numbered ones once there is a single page). A page count of 0 deletes every page.
+     */
+    public static void deleteStalePages(File outputDir, String imageName, int pageCount) {
+        int dot = imageName.lastIndexOf('.');
+        Pattern numbered = dot < 0 ? Pattern.compile(Pattern.quote(imageName) + "_(\\d{1,9})")
+                : Pattern.compile(Pattern.quote(imageName.substring(0, dot)) + "_(\\d{1,9})"
+                + Pattern.quote(imageName.substring(dot)));
+        File[] files = outputDir.listFiles();
+        if (files == null) return;
+
+        for (File file : files) {
+            Matcher matcher = numbered.matcher(file.getName());
+            boolean stale = file.getName().equals(imageName) ? pageCount != 1
+                    : matcher.matches() && (pageCount <= 1 || Integer.parseInt(matcher.group(1)) >= pageCount);
+            if (stale && !file.delete()) {
+                ExporterLogger.warn("Could not delete stale atlas page {}", file);
+            }
+        }
+    }
 
-        JsonObject json = new JsonObject();
+    /**
+     * File name of a downscaled atlas level, with "_mip" and the level inserted before the first dot,
+     * e.g. atlas.png becomes atlas_mip1.png and data.min.json becomes data_mip1.min.json.
+     */
+    public static String mipFileName(String name, int level) {
+        if (level == 0) return name;
 
-        for (PackedTexture pt : packed) {
-            g.drawImage(pt.getEntry().getImage(), pt.getX(), pt.getY(), null);
+        int dot = name.indexOf('.');
+        return dot < 0 ? name + "_mip" + level : name.substring(0, dot) + "_mip" + level + name.substring(dot);
+    }
 
-            JsonObject entry = new JsonObject();
-            entry.addProperty("x", pt.getX());
-            entry.addProperty("y", pt.getY());
-            entry.addProperty("w", pt.getEntry().getWidth());
-            entry.addProperty("h", pt.getEntry().getHeight());
-            json.add(pt.getEntry().getKey(), entry);
+    private static void generate(List<TextureEntry> textures, Map<String, String> aliases, File outputDir,
+                                 String imageName, String jsonName, boolean detailed,
+                                 ExportMetrics.NamespaceMetrics metrics) throws IOException {
+        ExportMetrics.Stage packing = metrics.begin(ExportMetrics.STAGE_ATLAS_PACKING).items(textures.size());
+        List<PackResult> pages = packPages(textures);
+        packing.end();
+
+        // Downscaled levels are only written for the texture atlas
+        int mipLevels = detailed ? 0 : ExportSettings.getInstance().getAtlasMipLevels();
+        PngEncoder encoder = ExportSettings.getInstance().getPngCompression().getEncoder();
+        ExportMetrics.Stage encoding = metrics.begin(ExportMetrics.STAGE_ATLAS_ENCODING)
+                .items((long) pages.size() * (mipLevels + 1));
+        JsonObject[] atlasJson = new JsonObject[mipLevels + 1];
+        for (int level = 0; level <= mipLevels; level++) {
+            atlasJson[level] = new JsonObject();
         }
 
-        g.dispose();
-
         outputDir.mkdirs();
-        ImageIO.write(atlas, "png", new File(outputDir, imageName));
+        for (int page = 0; page < pages.size(); page++) {
+            PackResult result = pages.get(page);
+
+            int atlasWidth = atlasDimension(result.getWidth());
+            int atlasHeight = atlasDimension(result.getHeight());
+            logEfficiency(result, atlasWidth, atlasHeight, page);
+
+            PixelBuffer atlas = new PixelBuffer(atlasWidth, atlasHeight);
+            try {
+                for (PackedTexture p : result.getPlaced()) {
+                    try {
+                        p.getEntry().drawInto(atlas, p.getX(), p.getY());
+                    } catch (IOException e) {
+                        ExporterLogger.warn("Skipping texture {}: {}", p.getEntry().getKey(), e.getMessage());
+                        continue;
+                    }
+                    for (int level = 0; level <= mipLevels; level++) {
+                        atlasJson[level].add(p.getEntry().getKey(),
+                                detailed ? detailedEntry(p, page) : rectEntry(p, page, level));
+                    }
+                }
+
+                // Each level is filtered from the one above while it is still in memory
+                for (int level = 0; level <= mipLevels; level++) {
+                    if (level > 0) {
+                        PixelBuffer downsampled = atlas.downsample();
+                        atlas.close();
+                        atlas = downsampled;
+                    }
+                    File pageFile = new File(outputDir, pageFileName(mipFileName(imageName, level), page, pages.size()));
+                    encoder.write(atlas, pageFile);
+                    encoding.written(pageFile.length());
+                }
+            } finally {
+                atlas.close();
+            }
+        }
+
+        for (int level = 0; level <= mipLevels; level++) {
+            deleteStalePages(outputDir, mipFileName(imageName, level), pages.size());
+            for (Map.Entry<String, String> alias : aliases.entrySet()) {
+                JsonElement region = atlasJson[level].get(alias.getValue());
+                if (region != null) {
+                    atlasJson[level].add(alias.getKey(), region);
+                }
+            }
 
-        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outputDir, jsonName)), StandardCharsets.UTF_8)) {
-            GSON.toJson(json, writer);
+            File jsonFile = new File(outputDir, mipFileName(jsonName, level));
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8)) {
+                GSON.toJson(atlasJson[level], writer);
+            }
+            encoding.written(jsonFile.length());
         }
 
-        ExporterLogger.info("Generated detailed atlas with {} textures", textures.size());
+        // Levels an earlier export wrote with more downscaled levels
+        for (int level = mipLevels + 1; level <= ExportSettings.MAX_ATLAS_MIP_LEVELS; level++) {
+            deleteStalePages(outputDir, mipFileName(imageName, level), 0);
+            File jsonFile = new File(outputDir, mipFileName(jsonName, level));
+            if (jsonFile.isFile() && !jsonFile.delete()) {
+                ExporterLogger.warn("Could not delete stale atlas data {}", jsonFile);
+            }
+        }
+        encoding.end();
+    }
+
+    /**
+     * Rectangle of a texture at a mip level. For an animated texture it is the first frame,
+     * followed by the positions and times of all frames if more than one is kept.
+     */
+    private static JsonElement rectEntry(PackedTexture p, int page, int level) {
+        TextureAnimation animation = p.getEntry().getAnimation();
+        int x = p.getX();
+        int y = p.getY();
+        int width = p.getEntry().getWidth();
+        int height = p.getEntry().getHeight();
+        if (animation != null) {
+            x += animation.getFrameX(0);
+            y += animation.getFrameY(0);
+            width = animation.getFrameWidth();
+            height = animation.getFrameHeight();
+        }
+
+        JsonArray rect = new JsonArray();
+        rect.add(x >> level);
+        rect.add(y >> level);
+        rect.add(scaledLength(x, width, level));
+        rect.add(scaledLength(y, height, level));
+        rect.add(page);
+        if (animation != null && animation.getFrameCount() > 1) {
+            rect.add(framesEntry(p, animation, level));
+        }
+        return rect;
     }
 
-    private static List<PackedTexture> packTextures(List<TextureEntry> textures) {
-        List<PackedTexture> packed = new ArrayList<>();
-        int currentX = 0;
-        int currentY = 0;
-        int rowHeight = 0;
+    private static JsonElement detailedEntry(PackedTexture p, int page) {
+        TextureAnimation animation = p.getEntry().getAnimation();
+        JsonObject entry = new JsonObject();
+        if (animation == null) {
+            entry.addProperty("x", p.getX());
+            entry.addProperty("y", p.getY());
+            entry.addProperty("w", p.getEntry().getWidth());
+            entry.addProperty("h", p.getEntry().getHeight());
+            entry.addProperty("page", page);
+            return entry;
+        }
+
+        entry.addProperty("x", p.getX() + animation.getFrameX(0));
+        entry.addProperty("y", p.getY() + animation.getFrameY(0));
+        entry.addProperty("w", animation.getFrameWidth());
+        entry.addProperty("h", animation.getFrameHeight());
+        entry.addProperty("page", page);
+        if (animation.getFrameCount() > 1) {
+            entry.add("animation", framesEntry(p, animation, 0));
+        }
+        return entry;
+    }
 
+    /**
+     * Atlas position at a mip level and duration in ticks of every played frame of an animated texture.
+     */
+    private static JsonObject framesEntry(PackedTexture p, TextureAnimation animation, int level) {
+        JsonArray frames = new JsonArray();
+        for (int frame = 0; frame < animation.getFrameCount(); frame++) {
+            JsonArray entry = new JsonArray();
+            entry.add((p.getX() + animation.getFrameX(frame)) >> level);
+            entry.add((p.getY() + animation.getFrameY(frame)) >> level);
+            entry.add(animation.getFrameTime(frame));
+            frames.add(entry);
+        }
+        JsonObject timing = new JsonObject();
+        timing.add("frames", frames);
+        if (animation.isInterpolated()) {
+            timing.addProperty("interpolate", true);
+        }
+        return timing;
+    }
+
+    /**
+     * Length of the span {@code [start, start + length)} at a mip level, covering every texel the
+     * span touches. Spans aligned to 2^level texels scale exactly.
+     */
+    private static int scaledLength(int start, int length, int level) {
+        return Math.max(1, ((start + length + (1 << level) - 1) >> level) - (start >> level));
+    }
+
+    /**
+     * Pack textures into as many pages of at most the configured page size as needed.
+     */
+    private static List<PackResult> packPages(List<TextureEntry> textures) {
+        ExportSettings settings = ExportSettings.getInstance();
+        PackingStrategy strategy = settings.getPackingAlgorithm().create(settings.getPackingHeuristic());
+        int pageSize = settings.getMaxAtlasPageSize();
+
+        List<TextureEntry> remaining = new ArrayList<>(textures.size());
         for (TextureEntry entry : textures) {
-            if (currentX + entry.getWidth() > MAX_ATLAS_WIDTH) {
-                currentX = 0;
-                currentY += rowHeight;
-                rowHeight = 0;
+            if (entry.getWidth() > pageSize || entry.getHeight() > pageSize) {
+                ExporterLogger.warn("Texture {} ({}x{}) is larger than the {}px atlas page size, skipping",
+                        entry.getKey(), entry.getWidth(), entry.getHeight(), pageSize);
+            } else {
+                remaining.add(entry);
             }
+        }
 
-            packed.add(new PackedTexture(entry, currentX, currentY));
-            currentX += entry.getWidth();
-            rowHeight = Math.max(rowHeight, entry.getHeight());
+        List<PackResult> pages = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            PackResult result = strategy.pack(remaining, chooseBinWidth(remaining, pageSize), pageSize);
+            if (result.getPlaced().isEmpty()) {
+                // Cannot happen for textures within the page size, but never loop forever
+                ExporterLogger.error("Failed to pack {} textures into an atlas page", remaining.size());
+                break;
+            }
+            pages.add(result);
+            remaining = result.getRejected();
         }
 
-        return packed;
+        ExporterLogger.debug("Packed {} textures into {} page(s) with {}", textures.size(), pages.size(),
+                strategy.getName());
+        return pages;
     }
 
-    private static int calculateAtlasHeight(List<PackedTexture> packed) {
-        if (packed.isEmpty()) return 0;
-
-        int maxY = 0;
-        for (PackedTexture pt : packed) {
-            int bottom = pt.getY() + pt.getEntry().getHeight();
-            maxY = Math.max(maxY, bottom);
+    /**
+     * Pick a bin width giving a roughly square page: the power of two covering the square root
+     * of the total texture area, at least as wide as the widest texture and at most the page size.
+     */
+    private static int chooseBinWidth(List<TextureEntry> textures, int pageSize) {
+        long area = 0;
+        int widest = 1;
+        for (TextureEntry entry : textures) {
+            area += (long) entry.getWidth() * entry.getHeight();
+            widest = Math.max(widest, entry.getWidth());
         }
-        return maxY;
+
+        int width = nextPowerOfTwo((int) Math.min(Integer.MAX_VALUE / 2, (long) Math.ceil(Math.sqrt(area))));
+        return Math.min(pageSize, Math.max(width, widest));
+    }
+
+    /**
+     * Final atlas dimension for a packed extent, rounded up to a power of two if configured.
+     */
+    private static int atlasDimension(int extent) {
+        int size = Math.max(1, extent);
+        return ExportSettings.getInstance().isPowerOfTwoAtlas() ? nextPowerOfTwo(size) : size;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private static void logEfficiency(PackResult result, int atlasWidth, int atlasHeight, int page) {
+        ExporterLogger.info("Packed {} textures into {}x{} atlas page {} ({}% used)", result.getPlaced().size(),
+                atlasWidth, atlasHeight, page,
+                String.format(Locale.ROOT, "%.1f", result.getEfficiency(atlasWidth, atlasHeight) * 100));
     }
 }
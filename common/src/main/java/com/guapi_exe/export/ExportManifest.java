@@ -0,0 +1,343 @@
+package com.guapi_exe.export;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.Hashing;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-namespace record of what the last export was built from.
+ * Holds a content hash for every source resource, one combined hash per export stage and the files
+ * each resource stage wrote, so a re-export can skip every stage whose inputs did not change and
+ * whose files are all still there.
+ */
+public class ExportManifest {
+    public static final String FILE_NAME = "export_manifest.json";
+    private static final int FORMAT_VERSION = 1;
+
+    public static final String STAGE_BLOCK_DEFINITIONS = "block_definitions";
+    public static final String STAGE_BLOCK_MODELS = "block_models";
+    public static final String STAGE_ITEM_MODELS = "item_models";
+    public static final String STAGE_METADATA = "metadata";
+    public static final String STAGE_ATLAS = "atlas";
+    public static final String STAGE_ICONS = "icons";
+
+    private final String modVersion;
+    private final Map<String, String> stages = new LinkedHashMap<>();
+    private final Map<String, String> resources = new LinkedHashMap<>();
+    private final Map<String, List<String>> outputs = new LinkedHashMap<>();
+    private long bytesHashed;
+
+    public ExportManifest(String modVersion) {
+        this.modVersion = modVersion;
+    }
+
+    /**
+     * Load the manifest of a namespace export directory.
+     * A missing, unreadable or outdated manifest yields an empty one, so everything is rebuilt.
+     */
+    public static ExportManifest load(File modExportDir) {
+        File file = new File(modExportDir, FILE_NAME);
+        if (!file.isFile()) {
+            return new ExportManifest(null);
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            if (!root.has("format") || root.get("format").getAsInt() != FORMAT_VERSION) {
+                return new ExportManifest(null);
+            }
+            JsonElement version = root.get("mod_version");
+            ExportManifest manifest = new ExportManifest(version != null && !version.isJsonNull()
+                    ? version.getAsString() : null);
+            readMap(root, "stages", manifest.stages);
+            readMap(root, "resources", manifest.resources);
+            if (root.has("outputs")) {
+                for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject("outputs").entrySet()) {
+                    List<String> files = new ArrayList<>();
+                    for (JsonElement output : entry.getValue().getAsJsonArray()) {
+                        files.add(output.getAsString());
+                    }
+                    manifest.outputs.put(entry.getKey(), files);
+                }
+            }
+            return manifest;
+        } catch (Exception e) {
+            ExporterLogger.warn("Ignoring unreadable export manifest {}: {}", file, e.getMessage());
+            return new ExportManifest(null);
+        }
+    }
+
+    private static void readMap(JsonObject root, String name, Map<String, String> target) {
+        if (!root.has(name)) return;
+        for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject(name).entrySet()) {
+            target.put(entry.getKey(), entry.getValue().getAsString());
+        }
+    }
+
+    /**
+     * Write the manifest into a namespace export directory.
+     */
+    public void save(File modExportDir) throws IOException {
+        modExportDir.mkdirs();
+        File file = new File(modExportDir, FILE_NAME);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            writer.beginObject();
+            writer.name("format").value(FORMAT_VERSION);
+            writer.name("mod_version").value(modVersion);
+            writeMap(writer, "stages", stages);
+            writeMap(writer, "resources", resources);
+            writer.name("outputs").beginObject();
+            for (Map.Entry<String, List<String>> entry : outputs.entrySet()) {
+                writer.name(entry.getKey()).beginArray();
+                for (String output : entry.getValue()) {
+                    writer.value(output);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+    }
+
+    private static void writeMap(JsonWriter writer, String name, Map<String, String> map) throws IOException {
+        writer.name(name).beginObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
+    }
+
+    public String getModVersion() {
+        return modVersion;
+    }
+
+    public String getStage(String stage) {
+        return stages.get(stage);
+    }
+
+    public void putStage(String stage, String hash) {
+        if (hash != null) {
+            stages.put(stage, hash);
+        } else {
+            stages.remove(stage);
+        }
+    }
+
+    /**
+     * Whether a stage was last built from inputs with the given hash.
+     */
+    public boolean isStageCurrent(String stage, String hash) {
+        return hash != null && hash.equals(stages.get(stage));
+    }
+
+    /**
+     * Files a stage wrote, relative to the namespace export directory, or null if they were not recorded.
+     */
+    public List<String> getOutputs(String stage) {
+        return outputs.get(stage);
+    }
+
+    public void putOutputs(String stage, List<String> files) {
+        outputs.put(stage, files);
+    }
+
+    /**
+     * Whether every file a stage wrote is still on disk. A stage that wrote no files is complete;
+     * a stage whose files were not recorded is not.
+     */
+    public boolean outputsExist(String stage, File modExportDir) {
+        List<String> files = outputs.get(stage);
+        if (files == null) {
+            return false;
+        }
+        for (String file : files) {
+            if (!new File(modExportDir, file).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getResourceHash(ResourceLocation location) {
+        return resources.get(location.toString());
+    }
+
+    /**
+     * Whether a resource had the same content hash when this manifest was written.
+     */
+    public boolean isResourceCurrent(ResourceLocation location, String hash) {
+        return hash != null && hash.equals(resources.get(location.toString()));
+    }
+
+    /**
+     * Read and hash every resource, record the hashes and keep the bytes, so an export that
+     * follows does not read the resources again.
+     * Resources that cannot be read are passed on as they are and get no hash, so they are retried next time.
+     *
+     * @return The same resources backed by the bytes read
+     */
+    public Map<ResourceLocation, Resource> hashResources(Map<ResourceLocation, Resource> sources) {
+        Map<ResourceLocation, Resource> loaded = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : sources.entrySet()) {
+            Resource resource = entry.getValue();
+            try (InputStream in = resource.open()) {
+                byte[] data = in.readAllBytes();
+                bytesHashed += data.length;
+                resources.put(entry.getKey().toString(), Hashing.sha1Hex(data));
+                resource = new Resource(resource.source(), () -> new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                // Left unhashed
+            }
+            loaded.put(entry.getKey(), resource);
+        }
+        return loaded;
+    }
+
+    /**
+     * Wrap every resource so its hash is recorded while an export streams it.
+     * A stream that is closed before its end is read to the end, so the hash covers the whole resource.
+     * Resources that are never opened (such as files copied without streaming) get no hash.
+     */
+    public Map<ResourceLocation, Resource> recordResources(Map<ResourceLocation, Resource> sources) {
+        Map<ResourceLocation, Resource> recording = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : sources.entrySet()) {
+            Resource resource = entry.getValue();
+            String key = entry.getKey().toString();
+            recording.put(entry.getKey(), new Resource(resource.source(),
+                    () -> new RecordingInputStream(key, resource.open())));
+        }
+        return recording;
+    }
+
+    /**
+     * Hash the resources that have no hash yet, such as files an export copied without streaming them.
+     */
+    public void hashUnrecorded(Map<ResourceLocation, Resource> sources) {
+        Map<ResourceLocation, Resource> unrecorded = new LinkedHashMap<>();
+        sources.forEach((location, resource) -> {
+            if (!resources.containsKey(location.toString())) {
+                unrecorded.put(location, resource);
+            }
+        });
+        hashResources(unrecorded);
+    }
+
+    /**
+     * Combined hash of the recorded hashes of a set of resources.
+     * Resources without a hash contribute a marker, so they are retried next time.
+     */
+    public String combinedHash(Map<ResourceLocation, ?> sources) {
+        MessageDigest combined = Hashing.sha1();
+        for (ResourceLocation location : sources.keySet()) {
+            String hash = resources.get(location.toString());
+            update(combined, location.toString(), hash != null ? hash : "unreadable");
+        }
+        return Hashing.toHex(combined.digest());
+    }
+
+    /**
+     * Record hashes of already loaded resources and return a combined hash of the whole map.
+     */
+    public String hashLoaded(Map<ResourceLocation, byte[]> loaded) {
+        MessageDigest combined = Hashing.sha1();
+        for (Map.Entry<ResourceLocation, byte[]> entry : loaded.entrySet()) {
+            String hash = Hashing.sha1Hex(entry.getValue());
+            bytesHashed += entry.getValue().length;
+            resources.put(entry.getKey().toString(), hash);
+            update(combined, entry.getKey().toString(), hash);
+        }
+        return Hashing.toHex(combined.digest());
+    }
+
+    /**
+     * Total size of the resources hashed into this manifest so far.
+     */
+    public long getBytesHashed() {
+        return bytesHashed;
+    }
+
+    /**
+     * Combine stage inputs (hashes and settings) into one hash.
+     */
+    public static String combine(Object... parts) {
+        MessageDigest combined = Hashing.sha1();
+        for (Object part : parts) {
+            update(combined, Objects.toString(part));
+        }
+        return Hashing.toHex(combined.digest());
+    }
+
+    private static void update(MessageDigest digest, String... values) {
+        for (String value : values) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+    }
+
+    /**
+     * Digests a resource as it is read and records the hash when closed.
+     */
+    private final class RecordingInputStream extends DigestInputStream {
+        private final String key;
+        private boolean closed;
+
+        private RecordingInputStream(String key, InputStream in) {
+            super(in, Hashing.sha1());
+            this.key = key;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                transferTo(OutputStream.nullOutputStream());
+                resources.put(key, Hashing.toHex(getMessageDigest().digest()));
+            } finally {
+                super.close();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesHashed++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                bytesHashed += count;
+            }
+            return count;
+        }
+    }
+}
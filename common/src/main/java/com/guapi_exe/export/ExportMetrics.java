@@ -0,0 +1,277 @@
+package com.guapi_exe.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wall time, item counts, bytes read and written, and heap use of every export stage,
+ * per namespace and in total, for one export run.
+ * Stages may run on several threads at once and may be entered many times (icon rendering
+ * records every frame); all records of a stage add up. Time of stages that run on a worker
+ * pool (icon encoding) is therefore summed over the workers.
+ * Heap use is sampled when a stage begins and ends; the run peak comes from the JVM's heap pools.
+ */
+public class ExportMetrics {
+    public static final String FILE_NAME = "export_report.json";
+    private static final int FORMAT_VERSION = 1;
+
+    public static final String STAGE_SCANNING = "scanning";
+    public static final String STAGE_DEFINITIONS = "definitions";
+    public static final String STAGE_MODELS = "models";
+    public static final String STAGE_TEXTURES = "textures";
+    public static final String STAGE_ATLAS_PACKING = "atlas_packing";
+    public static final String STAGE_ATLAS_ENCODING = "atlas_encoding";
+    public static final String STAGE_METADATA = "metadata";
+    public static final String STAGE_ICON_RENDER = "icon_render";
+    public static final String STAGE_ICON_READBACK = "icon_readback";
+    public static final String STAGE_ICON_ENCODE = "icon_encode";
+    public static final String STAGE_ICON_ATLAS = "icon_atlas";
+
+    /**
+     * Records into no run at all, for callers that are not part of an export.
+     */
+    public static final NamespaceMetrics DISCARD = new NamespaceMetrics(null, null);
+
+    private final Instant started = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final Map<String, StageMetrics> totals = new LinkedHashMap<>();
+    private final Map<String, Map<String, StageMetrics>> namespaces = new TreeMap<>();
+
+    public ExportMetrics() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Recorder for the stages of one namespace.
+     *
+     * @param namespace Namespace, or null for run-wide stages such as scanning
+     */
+    public NamespaceMetrics forNamespace(String namespace) {
+        return new NamespaceMetrics(this, namespace);
+    }
+
+    private synchronized void record(String namespace, String stage, long nanos, long items, long bytesRead,
+                                     long bytesWritten, long heapUsed, boolean skipped) {
+        totals.computeIfAbsent(stage, s -> new StageMetrics())
+                .add(nanos, items, bytesRead, bytesWritten, heapUsed, skipped);
+        if (namespace != null) {
+            namespaces.computeIfAbsent(namespace, n -> new LinkedHashMap<>())
+                    .computeIfAbsent(stage, s -> new StageMetrics())
+                    .add(nanos, items, bytesRead, bytesWritten, heapUsed, skipped);
+        }
+    }
+
+    /**
+     * Wall time since the run started.
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Highest heap use since the run started, summed over the heap pools.
+     */
+    public long getPeakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * Write the report into the export root directory.
+     */
+    public synchronized void writeReport(File baseExportDir) throws IOException {
+        baseExportDir.mkdirs();
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(baseExportDir, FILE_NAME)), StandardCharsets.UTF_8)))) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("format").value(FORMAT_VERSION);
+            writer.name("started").value(started.toString());
+            writer.name("wall_ms").value(getElapsedNanos() / 1_000_000);
+            writer.name("peak_heap_bytes").value(getPeakHeapBytes());
+            writer.name("totals");
+            writeStages(writer, totals);
+            writer.name("namespaces").beginObject();
+            for (Map.Entry<String, Map<String, StageMetrics>> entry : namespaces.entrySet()) {
+                writer.name(entry.getKey());
+                writeStages(writer, entry.getValue());
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+    }
+
+    private static void writeStages(JsonWriter writer, Map<String, StageMetrics> stages) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, StageMetrics> entry : stages.entrySet()) {
+            StageMetrics stage = entry.getValue();
+            writer.name(entry.getKey()).beginObject();
+            writer.name("wall_ms").value(Math.round(stage.nanos / 100_000.0) / 10.0);
+            writer.name("runs").value(stage.runs);
+            writer.name("skipped").value(stage.skipped);
+            writer.name("items").value(stage.items);
+            writer.name("bytes_read").value(stage.bytesRead);
+            writer.name("bytes_written").value(stage.bytesWritten);
+            writer.name("peak_heap_bytes").value(stage.peakHeap);
+            if (stage.items > 0 && stage.nanos > 0) {
+                writer.name("items_per_second").value(Math.round(stage.items * 1e9 / stage.nanos));
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Short chat summary: total time and heap, then the slowest stages.
+     *
+     * @param slowest Number of stages to list
+     */
+    public synchronized List<String> summarize(int slowest) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Export took %.1fs, peak heap %d MB",
+                getElapsedNanos() / 1e9, getPeakHeapBytes() / (1024 * 1024)));
+
+        List<Map.Entry<String, StageMetrics>> stages = new ArrayList<>(totals.entrySet());
+        stages.sort((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos));
+        StringBuilder builder = new StringBuilder("Slowest stages:");
+        for (int i = 0; i < Math.min(slowest, stages.size()); i++) {
+            StageMetrics stage = stages.get(i).getValue();
+            builder.append(i == 0 ? " " : ", ").append(stages.get(i).getKey())
+                    .append(String.format(Locale.ROOT, " %.2fs", stage.nanos / 1e9));
+            if (stage.items > 0) {
+                builder.append(" (").append(stage.items).append(" items)");
+            }
+        }
+        if (!stages.isEmpty()) {
+            lines.add(builder.toString());
+        }
+        return lines;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Stage recorder bound to one namespace of a run.
+     */
+    public static final class NamespaceMetrics {
+        private final ExportMetrics run;
+        private final String namespace;
+
+        private NamespaceMetrics(ExportMetrics run, String namespace) {
+            this.run = run;
+            this.namespace = namespace;
+        }
+
+        /**
+         * Start timing a stage. Nothing is recorded until {@link Stage#end()}.
+         */
+        public Stage begin(String stage) {
+            return new Stage(this, stage);
+        }
+
+        /**
+         * Record a stage that was skipped because its output is up to date.
+         */
+        public void skip(String stage) {
+            if (run != null) {
+                run.record(namespace, stage, 0, 0, 0, 0, 0, true);
+            }
+        }
+    }
+
+    /**
+     * One timed run of a stage. Counters are added up until the stage ends.
+     */
+    public static final class Stage {
+        private final NamespaceMetrics owner;
+        private final String name;
+        private final long start = System.nanoTime();
+        private final long heapAtStart;
+        private long items;
+        private long bytesRead;
+        private long bytesWritten;
+
+        private Stage(NamespaceMetrics owner, String name) {
+            this.owner = owner;
+            this.name = name;
+            this.heapAtStart = owner.run != null ? usedHeap() : 0;
+        }
+
+        public Stage items(long count) {
+            items += count;
+            return this;
+        }
+
+        public Stage read(long bytes) {
+            bytesRead += bytes;
+            return this;
+        }
+
+        public Stage written(long bytes) {
+            bytesWritten += bytes;
+            return this;
+        }
+
+        /**
+         * Stop timing and add this run to the stage's totals.
+         */
+        public void end() {
+            if (owner.run != null) {
+                owner.run.record(owner.namespace, name, System.nanoTime() - start, items, bytesRead, bytesWritten,
+                        Math.max(heapAtStart, usedHeap()), false);
+            }
+        }
+    }
+
+    private static final class StageMetrics {
+        private long nanos;
+        private int runs;
+        private int skipped;
+        private long items;
+        private long bytesRead;
+        private long bytesWritten;
+        private long peakHeap;
+
+        private void add(long nanos, long items, long bytesRead, long bytesWritten, long heapUsed,
+                         boolean skipped) {
+            if (skipped) {
+                this.skipped++;
+                return;
+            }
+            this.nanos += nanos;
+            this.runs++;
+            this.items += items;
+            this.bytesRead += bytesRead;
+            this.bytesWritten += bytesWritten;
+            this.peakHeap = Math.max(peakHeap, heapUsed);
+        }
+    }
+}
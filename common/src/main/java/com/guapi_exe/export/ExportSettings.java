@@ -1,5 +1,8 @@
 package com.guapi_exe.export;
 
+import com.guapi_exe.export.packing.MaxRectsPacker;
+import com.guapi_exe.export.packing.PackingAlgorithm;
+
 /**
  * Configuration settings for resource export.
  */
@@ -23,14 +26,148 @@ public final class ExportSettings {
     /** Maximum items per frame */
     public static final int MAX_ITEMS_PER_FRAME = 200;
 
+    /** Default icon render mode */
+    public static final IconRenderMode DEFAULT_RENDER_MODE = IconRenderMode.OFFSCREEN;
+
+    /** Default number of icons per row/column of an offscreen render batch */
+    public static final int DEFAULT_BATCH_GRID_SIZE = 8;
+
+    /** Minimum batch grid size */
+    public static final int MIN_BATCH_GRID_SIZE = 1;
+
+    /** Maximum batch grid size */
+    public static final int MAX_BATCH_GRID_SIZE = 32;
+
+    /** Default number of icon encoder threads */
+    public static final int DEFAULT_ENCODE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /** Minimum icon encoder threads */
+    public static final int MIN_ENCODE_THREADS = 1;
+
+    /** Maximum icon encoder threads */
+    public static final int MAX_ENCODE_THREADS = 64;
+
+    /** Default atlas packing algorithm */
+    public static final PackingAlgorithm DEFAULT_PACKING_ALGORITHM = PackingAlgorithm.MAXRECTS;
+
+    /** Default MaxRects free rectangle heuristic */
+    public static final MaxRectsPacker.Heuristic DEFAULT_PACKING_HEURISTIC = MaxRectsPacker.Heuristic.BEST_SHORT_SIDE_FIT;
+
+    /** Default for rounding atlas dimensions up to powers of two */
+    public static final boolean DEFAULT_POWER_OF_TWO_ATLAS = false;
+
+    /** Default maximum atlas page width and height */
+    public static final int DEFAULT_MAX_ATLAS_PAGE_SIZE = 4096;
+
+    /** Minimum atlas page size */
+    public static final int MIN_ATLAS_PAGE_SIZE = 256;
+
+    /** Maximum atlas page size */
+    public static final int MAX_ATLAS_PAGE_SIZE = 16384;
+
+    /** Default number of threads exporting namespaces in parallel */
+    public static final int DEFAULT_EXPORT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /** Minimum export threads */
+    public static final int MIN_EXPORT_THREADS = 1;
+
+    /** Maximum export threads */
+    public static final int MAX_EXPORT_THREADS = 64;
+
+    /**
+     * Default number of namespaces composing their texture atlas at once. Each holds a full atlas
+     * page in memory (64 MiB at the default page size), so this bounds atlas memory independently
+     * of the number of export threads.
+     */
+    public static final int DEFAULT_ATLAS_THREADS = 2;
+
+    /** Minimum concurrent atlas compositions */
+    public static final int MIN_ATLAS_THREADS = 1;
+
+    /** Maximum concurrent atlas compositions */
+    public static final int MAX_ATLAS_THREADS = 64;
+
+    /** Default for writing OBJ models as binary mesh buffers instead of JSON arrays */
+    public static final boolean DEFAULT_BINARY_MESHES = false;
+
+    /** Default for skipping export stages whose inputs did not change */
+    public static final boolean DEFAULT_INCREMENTAL_EXPORT = true;
+
+    /** Default frame time budget for icon rendering in milliseconds (0 uses a fixed items per frame) */
+    public static final int DEFAULT_FRAME_BUDGET_MS = 40;
+
+    /** Minimum frame budget */
+    public static final int MIN_FRAME_BUDGET_MS = 0;
+
+    /** Maximum frame budget */
+    public static final int MAX_FRAME_BUDGET_MS = 1000;
+
+    /** Default for deriving icon alpha from black and white renders instead of keying a color */
+    public static final boolean DEFAULT_ICON_MATTING = false;
+
+    /** Default icon supersampling factor */
+    public static final int DEFAULT_SUPERSAMPLE = 1;
+
+    /** Maximum icon supersampling factor */
+    public static final int MAX_SUPERSAMPLE = 4;
+
+    /** Default PNG compression preset for atlases and icons */
+    public static final PngCompression DEFAULT_PNG_COMPRESSION = PngCompression.BALANCED;
+
+    /** Default storage of animated textures in the texture atlas */
+    public static final AnimationMode DEFAULT_ANIMATION_MODE = AnimationMode.FIRST_FRAME;
+
+    /** Default number of downscaled texture atlas levels (0 writes the full-size atlas only) */
+    public static final int DEFAULT_ATLAS_MIP_LEVELS = 0;
+
+    /** Minimum number of downscaled texture atlas levels */
+    public static final int MIN_ATLAS_MIP_LEVELS = 0;
+
+    /** Maximum number of downscaled texture atlas levels */
+    public static final int MAX_ATLAS_MIP_LEVELS = 4;
+
     private int iconSize;
     private int itemsPerFrame;
+    private IconRenderMode renderMode;
+    private int batchGridSize;
+    private int encodeThreads;
+    private PackingAlgorithm packingAlgorithm;
+    private MaxRectsPacker.Heuristic packingHeuristic;
+    private boolean powerOfTwoAtlas;
+    private int maxAtlasPageSize;
+    private int exportThreads;
+    private int atlasThreads;
+    private boolean binaryMeshes;
+    private boolean incrementalExport;
+    private int frameBudgetMs;
+    private boolean iconMatting;
+    private int supersample;
+    private PngCompression pngCompression;
+    private AnimationMode animationMode;
+    private int atlasMipLevels;
 
     private static ExportSettings instance;
 
     private ExportSettings() {
         this.iconSize = DEFAULT_ICON_SIZE;
         this.itemsPerFrame = DEFAULT_ITEMS_PER_FRAME;
+        this.renderMode = DEFAULT_RENDER_MODE;
+        this.batchGridSize = DEFAULT_BATCH_GRID_SIZE;
+        this.encodeThreads = DEFAULT_ENCODE_THREADS;
+        this.packingAlgorithm = DEFAULT_PACKING_ALGORITHM;
+        this.packingHeuristic = DEFAULT_PACKING_HEURISTIC;
+        this.powerOfTwoAtlas = DEFAULT_POWER_OF_TWO_ATLAS;
+        this.maxAtlasPageSize = DEFAULT_MAX_ATLAS_PAGE_SIZE;
+        this.exportThreads = DEFAULT_EXPORT_THREADS;
+        this.atlasThreads = DEFAULT_ATLAS_THREADS;
+        this.binaryMeshes = DEFAULT_BINARY_MESHES;
+        this.incrementalExport = DEFAULT_INCREMENTAL_EXPORT;
+        this.frameBudgetMs = DEFAULT_FRAME_BUDGET_MS;
+        this.iconMatting = DEFAULT_ICON_MATTING;
+        this.supersample = DEFAULT_SUPERSAMPLE;
+        this.pngCompression = DEFAULT_PNG_COMPRESSION;
+        this.animationMode = DEFAULT_ANIMATION_MODE;
+        this.atlasMipLevels = DEFAULT_ATLAS_MIP_LEVELS;
     }
 
     /**
@@ -52,10 +189,10 @@ public final class ExportSettings {
 
     /**
      * Set the icon size in pixels.
-     * @param size Icon size (clamped to MIN_ICON_SIZE - MAX_ICON_SIZE)
+     * @param size Icon size (clamped to MIN_ICON_SIZE - MAX_ICON_SIZE and to the maximum atlas page size)
      */
     public void setIconSize(int size) {
-        this.iconSize = Math.max(MIN_ICON_SIZE, Math.min(MAX_ICON_SIZE, size));
+        this.iconSize = Math.max(MIN_ICON_SIZE, Math.min(Math.min(MAX_ICON_SIZE, maxAtlasPageSize), size));
     }
 
     /**
@@ -73,16 +210,302 @@ public final class ExportSettings {
         this.itemsPerFrame = Math.max(MIN_ITEMS_PER_FRAME, Math.min(MAX_ITEMS_PER_FRAME, count));
     }
 
+    /**
+     * Get the icon render mode.
+     */
+    public IconRenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Set the icon render mode.
+     * @param mode Render mode (null resets to DEFAULT_RENDER_MODE)
+     */
+    public void setRenderMode(IconRenderMode mode) {
+        this.renderMode = mode != null ? mode : DEFAULT_RENDER_MODE;
+    }
+
+    /**
+     * Get the number of icons per row/column of an offscreen render batch.
+     */
+    public int getBatchGridSize() {
+        return batchGridSize;
+    }
+
+    /**
+     * Set the number of icons per row/column of an offscreen render batch.
+     * @param size Grid size (clamped to MIN_BATCH_GRID_SIZE - MAX_BATCH_GRID_SIZE)
+     */
+    public void setBatchGridSize(int size) {
+        this.batchGridSize = Math.max(MIN_BATCH_GRID_SIZE, Math.min(MAX_BATCH_GRID_SIZE, size));
+    }
+
+    /**
+     * Get the number of threads used to encode and write rendered icons.
+     */
+    public int getEncodeThreads() {
+        return encodeThreads;
+    }
+
+    /**
+     * Set the number of threads used to encode and write rendered icons.
+     * @param threads Thread count (clamped to MIN_ENCODE_THREADS - MAX_ENCODE_THREADS)
+     */
+    public void setEncodeThreads(int threads) {
+        this.encodeThreads = Math.max(MIN_ENCODE_THREADS, Math.min(MAX_ENCODE_THREADS, threads));
+    }
+
+    /**
+     * Get the atlas packing algorithm.
+     */
+    public PackingAlgorithm getPackingAlgorithm() {
+        return packingAlgorithm;
+    }
+
+    /**
+     * Set the atlas packing algorithm.
+     * @param algorithm Packing algorithm (null resets to DEFAULT_PACKING_ALGORITHM)
+     */
+    public void setPackingAlgorithm(PackingAlgorithm algorithm) {
+        this.packingAlgorithm = algorithm != null ? algorithm : DEFAULT_PACKING_ALGORITHM;
+    }
+
+    /**
+     * Get the free rectangle heuristic used by the MaxRects packer.
+     */
+    public MaxRectsPacker.Heuristic getPackingHeuristic() {
+        return packingHeuristic;
+    }
+
+    /**
+     * Set the free rectangle heuristic used by the MaxRects packer.
+     * @param heuristic Heuristic (null resets to DEFAULT_PACKING_HEURISTIC)
+     */
+    public void setPackingHeuristic(MaxRectsPacker.Heuristic heuristic) {
+        this.packingHeuristic = heuristic != null ? heuristic : DEFAULT_PACKING_HEURISTIC;
+    }
+
+    /**
+     * Whether atlas dimensions are rounded up to powers of two.
+     */
+    public boolean isPowerOfTwoAtlas() {
+        return powerOfTwoAtlas;
+    }
+
+    /**
+     * Set whether atlas dimensions are rounded up to powers of two.
+     */
+    public void setPowerOfTwoAtlas(boolean powerOfTwo) {
+        this.powerOfTwoAtlas = powerOfTwo;
+    }
+
+    /**
+     * Get the maximum width and height of one atlas page.
+     */
+    public int getMaxAtlasPageSize() {
+        return maxAtlasPageSize;
+    }
+
+    /**
+     * Set the maximum width and height of one atlas page.
+     * @param size Page size (clamped to MIN_ATLAS_PAGE_SIZE - MAX_ATLAS_PAGE_SIZE, rounded down to a power of two,
+     *             then raised to the next power of two that still holds one icon)
+     */
+    public void setMaxAtlasPageSize(int size) {
+        int pageSize = Integer.highestOneBit(Math.max(MIN_ATLAS_PAGE_SIZE, Math.min(MAX_ATLAS_PAGE_SIZE, size)));
+        while (pageSize < iconSize) {
+            pageSize <<= 1;
+        }
+        this.maxAtlasPageSize = pageSize;
+    }
+
+    /**
+     * Get the number of threads exporting definitions, models and textures in parallel.
+     */
+    public int getExportThreads() {
+        return exportThreads;
+    }
+
+    /**
+     * Set the number of threads exporting definitions, models and textures in parallel.
+     * @param threads Thread count (clamped to MIN_EXPORT_THREADS - MAX_EXPORT_THREADS)
+     */
+    public void setExportThreads(int threads) {
+        this.exportThreads = Math.max(MIN_EXPORT_THREADS, Math.min(MAX_EXPORT_THREADS, threads));
+    }
+
+    /**
+     * Get the maximum number of namespaces composing their texture atlas at once.
+     */
+    public int getAtlasThreads() {
+        return atlasThreads;
+    }
+
+    /**
+     * Set the maximum number of namespaces composing their texture atlas at once.
+     * Peak atlas memory is about this many times the size of one atlas page.
+     * @param threads Limit (clamped to MIN_ATLAS_THREADS - MAX_ATLAS_THREADS)
+     */
+    public void setAtlasThreads(int threads) {
+        this.atlasThreads = Math.max(MIN_ATLAS_THREADS, Math.min(MAX_ATLAS_THREADS, threads));
+    }
+
+    /**
+     * Whether OBJ models are written as binary mesh buffers.
+     */
+    public boolean isBinaryMeshes() {
+        return binaryMeshes;
+    }
+
+    /**
+     * Set whether OBJ models are written as binary mesh buffers.
+     */
+    public void setBinaryMeshes(boolean binary) {
+        this.binaryMeshes = binary;
+    }
+
+    /**
+     * Whether export stages whose inputs match the previous export manifest are skipped.
+     */
+    public boolean isIncrementalExport() {
+        return incrementalExport;
+    }
+
+    /**
+     * Set whether export stages whose inputs match the previous export manifest are skipped.
+     */
+    public void setIncrementalExport(boolean incremental) {
+        this.incrementalExport = incremental;
+    }
+
+    /**
+     * Get the time budget per frame for icon rendering in milliseconds.
+     * When positive, it replaces the fixed items per frame.
+     */
+    public int getFrameBudgetMs() {
+        return frameBudgetMs;
+    }
+
+    /**
+     * Set the time budget per frame for icon rendering in milliseconds.
+     * @param ms Budget (clamped to MIN_FRAME_BUDGET_MS - MAX_FRAME_BUDGET_MS, 0 uses items per frame)
+     */
+    public void setFrameBudgetMs(int ms) {
+        this.frameBudgetMs = Math.max(MIN_FRAME_BUDGET_MS, Math.min(MAX_FRAME_BUDGET_MS, ms));
+    }
+
+    /**
+     * Whether icons are rendered on black and white and their alpha derived from the difference.
+     * Only applies to offscreen rendering.
+     */
+    public boolean isIconMatting() {
+        return iconMatting;
+    }
+
+    /**
+     * Set whether icons are rendered on black and white and their alpha derived from the difference.
+     */
+    public void setIconMatting(boolean matting) {
+        this.iconMatting = matting;
+    }
+
+    /**
+     * Get the factor icons are rendered larger by before being box-filtered down to the icon size.
+     * Only applies to offscreen rendering.
+     */
+    public int getSupersample() {
+        return supersample;
+    }
+
+    /**
+     * Set the icon supersampling factor.
+     * @param factor Factor (rounded down to 1, 2 or 4)
+     */
+    public void setSupersample(int factor) {
+        this.supersample = factor >= MAX_SUPERSAMPLE ? MAX_SUPERSAMPLE : factor >= 2 ? 2 : 1;
+    }
+
+    /**
+     * Get the PNG compression preset used for atlases and icons.
+     */
+    public PngCompression getPngCompression() {
+        return pngCompression;
+    }
+
+    /**
+     * Set the PNG compression preset used for atlases and icons.
+     * @param compression Preset (null resets to DEFAULT_PNG_COMPRESSION)
+     */
+    public void setPngCompression(PngCompression compression) {
+        this.pngCompression = compression != null ? compression : DEFAULT_PNG_COMPRESSION;
+    }
+
+    /**
+     * Get how animated textures are stored in the texture atlas.
+     */
+    public AnimationMode getAnimationMode() {
+        return animationMode;
+    }
+
+    /**
+     * Set how animated textures are stored in the texture atlas.
+     * @param mode Mode (null resets to DEFAULT_ANIMATION_MODE)
+     */
+    public void setAnimationMode(AnimationMode mode) {
+        this.animationMode = mode != null ? mode : DEFAULT_ANIMATION_MODE;
+    }
+
+    /**
+     * Get the number of downscaled texture atlas levels written next to the full-size atlas.
+     */
+    public int getAtlasMipLevels() {
+        return atlasMipLevels;
+    }
+
+    /**
+     * Set the number of downscaled texture atlas levels; level n is 1/2^n of the full size.
+     * @param levels Levels (clamped to MIN_ATLAS_MIP_LEVELS - MAX_ATLAS_MIP_LEVELS)
+     */
+    public void setAtlasMipLevels(int levels) {
+        this.atlasMipLevels = Math.max(MIN_ATLAS_MIP_LEVELS, Math.min(MAX_ATLAS_MIP_LEVELS, levels));
+    }
+
     /**
      * Reset all settings to defaults.
      */
     public void reset() {
         this.iconSize = DEFAULT_ICON_SIZE;
         this.itemsPerFrame = DEFAULT_ITEMS_PER_FRAME;
+        this.renderMode = DEFAULT_RENDER_MODE;
+        this.batchGridSize = DEFAULT_BATCH_GRID_SIZE;
+        this.encodeThreads = DEFAULT_ENCODE_THREADS;
+        this.packingAlgorithm = DEFAULT_PACKING_ALGORITHM;
+        this.packingHeuristic = DEFAULT_PACKING_HEURISTIC;
+        this.powerOfTwoAtlas = DEFAULT_POWER_OF_TWO_ATLAS;
+        this.maxAtlasPageSize = DEFAULT_MAX_ATLAS_PAGE_SIZE;
+        this.exportThreads = DEFAULT_EXPORT_THREADS;
+        this.atlasThreads = DEFAULT_ATLAS_THREADS;
+        this.binaryMeshes = DEFAULT_BINARY_MESHES;
+        this.incrementalExport = DEFAULT_INCREMENTAL_EXPORT;
+        this.frameBudgetMs = DEFAULT_FRAME_BUDGET_MS;
+        this.iconMatting = DEFAULT_ICON_MATTING;
+        this.supersample = DEFAULT_SUPERSAMPLE;
+        this.pngCompression = DEFAULT_PNG_COMPRESSION;
+        this.animationMode = DEFAULT_ANIMATION_MODE;
+        this.atlasMipLevels = DEFAULT_ATLAS_MIP_LEVELS;
     }
 
     @Override
     public String toString() {
-        return "ExportSettings{iconSize=" + iconSize + ", itemsPerFrame=" + itemsPerFrame + "}";
+        return "ExportSettings{iconSize=" + iconSize + ", itemsPerFrame=" + itemsPerFrame +
+                ", renderMode=" + renderMode + ", batchGridSize=" + batchGridSize +
+                ", encodeThreads=" + encodeThreads + ", packingAlgorithm=" + packingAlgorithm +
+                ", packingHeuristic=" + packingHeuristic + ", powerOfTwoAtlas=" + powerOfTwoAtlas +
+                ", maxAtlasPageSize=" + maxAtlasPageSize + ", exportThreads=" + exportThreads +
+                ", atlasThreads=" + atlasThreads +
+                ", binaryMeshes=" + binaryMeshes + ", incrementalExport=" + incrementalExport +
+                ", frameBudgetMs=" + frameBudgetMs + ", iconMatting=" + iconMatting +
+                ", supersample=" + supersample + ", pngCompression=" + pngCompression +
+                ", animationMode=" + animationMode + ", atlasMipLevels=" + atlasMipLevels + "}";
     }
 }
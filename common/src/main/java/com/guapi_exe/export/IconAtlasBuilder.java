@@ -0,0 +1,194 @@
+package com.guapi_exe.export;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.NativePixels;
+import com.guapi_exe.util.PixelBuffer;
+import com.mojang.blaze3d.platform.NativeImage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Incrementally builds the rendered-icon atlas in memory.
+ * All icons share one size, so each icon simply goes into the cell of a fixed grid chosen for it
+ * when it was submitted, and the atlas is complete when the last icon arrives.
+ * Cells are assigned by the caller in a fixed order, so the layout does not depend on which
+ * writer thread finishes first.
+ * The grid is split into pages no larger than the configured atlas page size,
+ * each kept off-heap in a {@link PixelBuffer} and filled with one bulk copy per icon row.
+ * Safe to call {@link #add} from several writer threads at once.
+ */
+public class IconAtlasBuilder {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final String keyPrefix;
+    private final int iconSize;
+    private final int columns;
+    private final int slotsPerPage;
+    private final String[] keys;
+    private final AtomicReferenceArray<PixelBuffer> pages;
+    private final AtomicInteger added = new AtomicInteger();
+
+    /**
+     * @param keyPrefix Prefix prepended to each icon name in the atlas JSON (e.g. "minecraft:")
+     * @param iconSize  Width and height of every icon
+     * @param capacity  Number of cells; icons are added to slots {@code 0} to {@code capacity - 1}
+     * @throws IllegalArgumentException If an icon is larger than the maximum atlas page size
+     */
+    public IconAtlasBuilder(String keyPrefix, int iconSize, int capacity) {
+        int pageSize = ExportSettings.getInstance().getMaxAtlasPageSize();
+        if (iconSize > pageSize) {
+            throw new IllegalArgumentException("Icon size " + iconSize + " exceeds the atlas page size " + pageSize);
+        }
+        int cellsPerSide = pageSize / iconSize;
+        this.keyPrefix = keyPrefix;
+        this.iconSize = iconSize;
+        this.columns = Math.max(1, Math.min(capacity, cellsPerSide));
+        this.slotsPerPage = columns * cellsPerSide;
+        this.keys = new String[capacity];
+        this.pages = new AtomicReferenceArray<>(Math.max(1, (capacity + slotsPerPage - 1) / slotsPerPage));
+    }
+
+    /**
+     * Copy an icon into a cell.
+     *
+     * @param slot Cell of the icon, at most one icon per cell
+     * @param name Icon name without namespace
+     * @param icon Icon pixels, at least iconSize x iconSize
+     */
+    public void add(int slot, String name, NativeImage icon) {
+        if (!claim(slot, name)) return;
+
+        getPage(slot / slotsPerPage).put(cellX(slot), cellY(slot), NativePixels.bytes(icon), icon.getWidth(),
+                iconSize, iconSize);
+        keys[slot] = keyPrefix + name;
+    }
+
+    private boolean claim(int slot, String name) {
+        if (slot < 0 || slot >= keys.length) {
+            ExporterLogger.warn("Icon atlas has no cell {}, skipping {}", slot, name);
+            return false;
+        }
+        added.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Copy an already decoded icon into a cell.
+     *
+     * @param slot Cell of the icon, at most one icon per cell
+     * @param name Icon name without namespace
+     * @param icon Icon pixels; only the top-left iconSize x iconSize area is used
+     */
+    public void add(int slot, String name, PixelBuffer icon) {
+        if (!claim(slot, name)) return;
+
+        getPage(slot / slotsPerPage).put(cellX(slot), cellY(slot), icon, 0, 0,
+                Math.min(iconSize, icon.getWidth()), Math.min(iconSize, icon.getHeight()));
+        keys[slot] = keyPrefix + name;
+    }
+
+    /**
+     * Number of icons added so far.
+     */
+    public int size() {
+        return added.get();
+    }
+
+    /**
+     * Write the atlas image and its JSON metadata, freeing each page once it is written.
+     * Must only be called once, after every {@link #add} call has returned.
+     *
+     * @return Number of bytes written
+     */
+    public long write(File outputDir, String imageName, String jsonName) throws IOException {
+        // Cells after the last filled one are not written
+        int count = keys.length;
+        while (count > 0 && keys[count - 1] == null) {
+            count--;
+        }
+        if (count == 0) {
+            ExporterLogger.debug("No icons to generate atlas");
+            return 0;
+        }
+
+        JsonObject atlasJson = new JsonObject();
+        for (int slot = 0; slot < count; slot++) {
+            if (keys[slot] == null) continue;
+
+            JsonArray rect = new JsonArray();
+            rect.add(cellX(slot));
+            rect.add(cellY(slot));
+            rect.add(iconSize);
+            rect.add(iconSize);
+            rect.add(slot / slotsPerPage);
+            atlasJson.add(keys[slot], rect);
+        }
+
+        outputDir.mkdirs();
+        int pageCount = (count + slotsPerPage - 1) / slotsPerPage;
+        long written = 0;
+        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+            PixelBuffer page = pages.get(pageIndex);
+            if (page == null) continue;
+
+            // Drop rows that were reserved but never filled
+            int slotsOnPage = Math.min(slotsPerPage, count - pageIndex * slotsPerPage);
+            int usedRows = (slotsOnPage + columns - 1) / columns;
+            File pageFile = new File(outputDir, AtlasGenerator.pageFileName(imageName, pageIndex, pageCount));
+            try {
+                ExportSettings.getInstance().getPngCompression().getEncoder()
+                        .write(page.getWidth(), usedRows * iconSize, page::readRow, pageFile);
+            } finally {
+                page.close();
+            }
+            written += pageFile.length();
+        }
+        AtlasGenerator.deleteStalePages(outputDir, imageName, pageCount);
+
+        File jsonFile = new File(outputDir, jsonName);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8)) {
+            GSON.toJson(atlasJson, writer);
+        }
+        written += jsonFile.length();
+
+        ExporterLogger.info("Generated icon atlas with {} icons", size());
+        return written;
+    }
+
+    private int cellX(int slot) {
+        return (slot % slotsPerPage % columns) * iconSize;
+    }
+
+    private int cellY(int slot) {
+        return (slot % slotsPerPage / columns) * iconSize;
+    }
+
+    /**
+     * Get a page image, allocating it on first use.
+     * Pages are sized for the capacity they can receive so unused pages cost nothing.
+     */
+    private PixelBuffer getPage(int pageIndex) {
+        PixelBuffer page = pages.get(pageIndex);
+        if (page == null) {
+            int slotsOnPage = Math.min(slotsPerPage, keys.length - pageIndex * slotsPerPage);
+            int rows = (slotsOnPage + columns - 1) / columns;
+            PixelBuffer created = new PixelBuffer(columns * iconSize, rows * iconSize);
+            if (!pages.compareAndSet(pageIndex, null, created)) {
+                created.close();
+            }
+            page = pages.get(pageIndex);
+        }
+        return page;
+    }
+}
@@ -1,9 +1,12 @@
 package com.guapi_exe.export;
 
 import com.guapi_exe.util.ExporterLogger;
+import com.mojang.blaze3d.pipeline.RenderTarget;
+import com.mojang.blaze3d.pipeline.TextureTarget;
 import com.mojang.blaze3d.platform.Lighting;
 import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.VertexSorting;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.Screenshot;
 import net.minecraft.client.gui.GuiGraphics;
@@ -15,48 +18,99 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.ItemDisplayContext;
 import net.minecraft.world.item.ItemStack;
+import org.joml.Matrix4f;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
  * Screen for rendering and exporting item icons.
- * Processes multiple items per frame for faster export.
+ * Processes as many items per frame as fit in the configured frame time budget, using a moving
+ * average of the measured per-item render and read-back cost to size each batch.
+ * In offscreen mode, items are drawn as a grid into a dedicated render target
+ * which is read back once per batch instead of once per item. Offscreen icons can be
+ * supersampled and matted against black and white instead of keyed by color.
+ * Read-back frames are handed to an {@link IconWriter} so the render thread only renders,
+ * and the icon atlas is assembled in memory as icons are written.
+ * Items whose {@link IconRenderCache} key matches the previous export reuse their existing
+ * icon file and are not rendered at all.
+ * Every item's atlas cell is fixed before anything is submitted: items keep their cell from the
+ * previous export and the others take the free cells in list order. Reused icons whose file cannot
+ * be read back are rendered after all.
  */
 public class IconExporterScreen extends Screen {
     private static final int BACKGROUND_COLOR = (255 << 24) | (254 << 16) | (255 << 8) | 255; // 0xFFFEFFFF
     private static final int BACKGROUND_COLOR_SHIFTED = (255 << 24) | (255 << 16) | (255 << 8) | 254;
 
+    // Weight of the newest sample in the per-item cost moving average
+    private static final double COST_SMOOTHING = 0.2;
+
     private final List<ItemStack> itemsToExport;
+    private final List<ItemStack> itemsToRender = new ArrayList<>();
+    private final Map<String, Integer> atlasSlots = new HashMap<>();
     private final File exportDir;
     private final String namespace;
     private final Consumer<Component> feedback;
     private final Runnable onComplete;
+    private final ExportMetrics.NamespaceMetrics metrics;
     private final int iconSize;
     private final int itemsPerFrame;
+    private final long frameBudgetNanos;
+    private double averageItemNanos = 0;
+    private int lastFrameItems = 0;
+    private final IconRenderMode renderMode;
+    private int batchGridSize;
+    private final boolean matting;
+    private final int supersample;
+    private final int cellSize;
+    private RenderTarget batchTarget;
+    private final IconWriter iconWriter;
+    private final IconAtlasBuilder atlasBuilder;
+    private final IconRenderCache renderCache;
+    private int reusedCount = 0;
     private float scale;
     private int currentIndex = 0;
     private int lastReportedProgress = -1;
+    private boolean encodingReported = false;
     private boolean initialized = false;
 
     public IconExporterScreen(List<ItemStack> items, File exportDir, String namespace,
-                              Consumer<Component> feedback, Runnable onComplete) {
+                              Consumer<Component> feedback, ExportMetrics.NamespaceMetrics metrics,
+                              Runnable onComplete) {
         super(Component.literal("Icon Exporter"));
         this.itemsToExport = items;
         this.exportDir = exportDir;
         this.namespace = namespace;
         this.feedback = feedback;
         this.onComplete = onComplete;
+        this.metrics = metrics;
 
         // Get settings from ExportSettings
         ExportSettings settings = ExportSettings.getInstance();
         this.iconSize = settings.getIconSize();
         this.itemsPerFrame = settings.getItemsPerFrame();
+        this.frameBudgetNanos = settings.getFrameBudgetMs() * 1_000_000L;
+        this.renderMode = settings.getRenderMode();
+        this.batchGridSize = settings.getBatchGridSize();
+        // Matting and supersampling need the offscreen target
+        boolean offscreen = renderMode == IconRenderMode.OFFSCREEN;
+        this.matting = offscreen && settings.isIconMatting();
+        this.supersample = offscreen ? settings.getSupersample() : 1;
+        this.cellSize = iconSize * supersample;
+
+        File iconsDir = new File(exportDir, "icons/rendered");
+        iconsDir.mkdirs();
+        int encodeThreads = settings.getEncodeThreads();
+        this.atlasBuilder = new IconAtlasBuilder(namespace + ":", iconSize, items.size());
+        this.iconWriter = new IconWriter(encodeThreads, encodeThreads * 2, iconsDir, BACKGROUND_COLOR_SHIFTED,
+                atlasBuilder, metrics);
+        this.renderCache = settings.isIncrementalExport()
+                ? IconRenderCache.load(new File(exportDir, "icons")) : new IconRenderCache();
     }
 
     @Override
@@ -64,6 +118,22 @@ public class IconExporterScreen extends Screen {
         super.init();
         // Calculate scale here when minecraft is properly initialized
         this.scale = (float) (iconSize / this.minecraft.getWindow().getGuiScale());
+
+        if (!initialized) {
+            selectItemsToRender();
+        }
+
+        if (renderMode == IconRenderMode.OFFSCREEN && batchTarget == null) {
+            // Keep the batch texture within what the GPU supports
+            // Matting puts a second copy of the grid, on white, to the right of the first
+            int copies = matting ? 2 : 1;
+            int maxGrid = Math.max(1, RenderSystem.maxSupportedTextureSize() / (cellSize * copies));
+            this.batchGridSize = Math.min(batchGridSize, maxGrid);
+            int gridPixels = batchGridSize * cellSize;
+            this.batchTarget = new TextureTarget(gridPixels * copies, gridPixels, true, Minecraft.ON_OSX);
+            ExporterLogger.debug("Created {}x{} offscreen icon target ({}x{} grid, {}x supersampling, matting {})",
+                    gridPixels * copies, gridPixels, batchGridSize, batchGridSize, supersample, matting);
+        }
         this.initialized = true;
     }
 
@@ -74,42 +144,113 @@ public class IconExporterScreen extends Screen {
             return;
         }
 
-        if (currentIndex >= itemsToExport.size()) {
-            finishExport();
+        if (currentIndex >= itemsToRender.size()) {
+            // Wait for the writers to drain before building the atlas
+            if (!iconWriter.isIdle()) {
+                if (!encodingReported) {
+                    encodingReported = true;
+                    feedback.accept(Component.literal("Writing " + namespace + " icons..."));
+                }
+                return;
+            }
+            if (!requeueFailedReuses()) {
+                finishExport();
+            }
             return;
         }
 
-        // Process multiple items per frame for faster export
+        // Process as many items as fit in the frame budget, or a fixed count without one
+        long frameStart = System.nanoTime();
         int itemsProcessed = 0;
-        while (currentIndex < itemsToExport.size() && itemsProcessed < itemsPerFrame) {
-            ItemStack stack = itemsToExport.get(currentIndex);
-            ResourceLocation id = BuiltInRegistries.ITEM.getKey(stack.getItem());
-
-            try {
-                int scaleRounded = (int) Math.ceil(scale);
-                guiGraphics.fill(0, 0, scaleRounded, scaleRounded, BACKGROUND_COLOR);
-
-                renderItem(guiGraphics, stack, scale);
-
-                // Flush the render buffer to ensure item is rendered
-                Minecraft.getInstance().renderBuffers().bufferSource().endBatch();
-
-                exportImageFromScreenshot(exportDir, id.getPath(), iconSize, BACKGROUND_COLOR_SHIFTED);
-            } catch (Exception e) {
-                ExporterLogger.error("Failed to export {}: {}", id, e.getMessage());
+        while (currentIndex < itemsToRender.size()) {
+            int limit;
+            if (frameBudgetNanos > 0) {
+                long remaining = frameBudgetNanos - (System.nanoTime() - frameStart);
+                if (itemsProcessed > 0 && remaining < averageItemNanos) {
+                    break;
+                }
+                limit = averageItemNanos > 0 ? (int) Math.max(1, remaining / (long) averageItemNanos) : 1;
+            } else {
+                if (itemsProcessed >= itemsPerFrame) {
+                    break;
+                }
+                limit = itemsPerFrame - itemsProcessed;
             }
 
-            currentIndex++;
-            itemsProcessed++;
+            long chunkStart = System.nanoTime();
+            int count = renderChunk(guiGraphics, limit);
+            recordItemCost(System.nanoTime() - chunkStart, count);
+            itemsProcessed += count;
         }
+        lastFrameItems = itemsProcessed;
 
         // Report progress every 10%
-        int progressPercent = (currentIndex * 100) / itemsToExport.size();
+        int progressPercent = (currentIndex * 100) / itemsToRender.size();
         int progressDecile = progressPercent / 10;
         if (progressDecile != lastReportedProgress) {
             lastReportedProgress = progressDecile;
-            feedback.accept(Component.literal("Rendering items: " + currentIndex + "/" + itemsToExport.size() + " (" + progressPercent + "%)"));
+            feedback.accept(Component.literal("Rendering items: " + currentIndex + "/" + itemsToRender.size()
+                    + " (" + progressPercent + "%, " + lastFrameItems + " items/frame, "
+                    + String.format(Locale.ROOT, "%.2f", averageItemNanos / 1_000_000.0) + " ms/item)"));
+        }
+    }
+
+    /**
+     * Render and queue up to {@code limit} items, either as one offscreen batch or as a single
+     * screenshot-mode item.
+     *
+     * @return Number of items consumed
+     */
+    private int renderChunk(GuiGraphics guiGraphics, int limit) {
+        if (batchTarget != null) {
+            int batchCapacity = batchGridSize * batchGridSize;
+            int count = Math.min(batchCapacity, Math.min(limit, itemsToRender.size() - currentIndex));
+            try {
+                exportBatch(guiGraphics, currentIndex, count);
+            } catch (Exception e) {
+                for (int i = 0; i < count; i++) {
+                    renderCache.remove(BuiltInRegistries.ITEM.getKey(
+                            itemsToRender.get(currentIndex + i).getItem()).getPath());
+                }
+                ExporterLogger.error("Failed to export icon batch at {}: {}", currentIndex, e.getMessage());
+            }
+            currentIndex += count;
+            return count;
+        }
+
+        ItemStack stack = itemsToRender.get(currentIndex);
+        ResourceLocation id = BuiltInRegistries.ITEM.getKey(stack.getItem());
+
+        try {
+            ExportMetrics.Stage rendering = metrics.begin(ExportMetrics.STAGE_ICON_RENDER).items(1);
+            int scaleRounded = (int) Math.ceil(scale);
+            guiGraphics.fill(0, 0, scaleRounded, scaleRounded, BACKGROUND_COLOR);
+
+            renderItem(guiGraphics, stack, 0, 0, scale);
+
+            // Flush the render buffer to ensure item is rendered
+            Minecraft.getInstance().renderBuffers().bufferSource().endBatch();
+            rendering.end();
+
+            exportImageFromScreenshot(id.getPath(), iconSize);
+        } catch (Exception e) {
+            renderCache.remove(id.getPath());
+            ExporterLogger.error("Failed to export {}: {}", id, e.getMessage());
         }
+
+        currentIndex++;
+        return 1;
+    }
+
+    /**
+     * Fold the measured render and read-back cost of a chunk into the per-item moving average.
+     */
+    private void recordItemCost(long elapsedNanos, int count) {
+        if (count <= 0) return;
+        double perItem = (double) elapsedNanos / count;
+        averageItemNanos = averageItemNanos > 0
+                ? averageItemNanos + COST_SMOOTHING * (perItem - averageItemNanos)
+                : perItem;
     }
 
     @Override
@@ -117,11 +258,32 @@ public class IconExporterScreen extends Screen {
         // No background rendering - skip parent's background
     }
 
+    @Override
+    public void removed() {
+        super.removed();
+        iconWriter.shutdown();
+        if (batchTarget != null) {
+            batchTarget.destroyBuffers();
+            batchTarget = null;
+        }
+    }
+
     private void finishExport() {
+        File iconsRoot = new File(exportDir, "icons");
+        ExportMetrics.Stage atlasStage = metrics.begin(ExportMetrics.STAGE_ICON_ATLAS).items(atlasBuilder.size());
         try {
-            generateRenderedAtlas(exportDir);
-            feedback.accept(Component.literal("Exported " + itemsToExport.size() + " rendered icons and atlas for " + namespace));
-            ExporterLogger.info("Exported {} rendered icons for {}", itemsToExport.size(), namespace);
+            iconWriter.getFailed().forEach(renderCache::remove);
+            renderCache.save(iconsRoot);
+        } catch (Exception e) {
+            ExporterLogger.warn("Failed to write icon render cache for {}: {}", namespace, e.getMessage());
+        }
+
+        try {
+            atlasStage.written(atlasBuilder.write(iconsRoot, "atlas.png", "data.min.json")).end();
+            feedback.accept(Component.literal("Exported " + itemsToExport.size() + " icons (" + reusedCount
+                    + " unchanged) and atlas for " + namespace));
+            ExporterLogger.info("Exported {} rendered icons for {}, reused {}", itemsToRender.size(), namespace,
+                    reusedCount);
         } catch (Exception e) {
             ExporterLogger.error("Failed to generate rendered atlas: {}", e.getMessage());
             feedback.accept(Component.literal("Exported " + itemsToExport.size() + " rendered icons (atlas failed)"));
@@ -136,12 +298,172 @@ public class IconExporterScreen extends Screen {
     }
 
     /**
-     * Render item at specified scale.
+     * Assign every item its atlas cell, compute its render key and queue unchanged icons for reuse.
+     * Only items without a matching key and existing icon file are left to render.
+     */
+    private void selectItemsToRender() {
+        Minecraft mc = Minecraft.getInstance();
+        assignAtlasSlots();
+        for (ItemStack stack : itemsToExport) {
+            String name = BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath();
+            String key = null;
+            try {
+                BakedModel model = mc.getItemRenderer().getModel(stack, null, null, 0);
+                key = renderCache.computeKey(BuiltInRegistries.ITEM.getKey(stack.getItem()), stack, model,
+                        iconSize + "/" + renderMode + "/" + supersample + "/" + matting + "/"
+                                + ExportSettings.getInstance().getPngCompression());
+            } catch (Exception e) {
+                ExporterLogger.debug("Could not compute render key of {}: {}", name, e.getMessage());
+            }
+            renderCache.put(name, key);
+
+            if (renderCache.isCurrent(name, key) && iconWriter.hasIcon(name)) {
+                try {
+                    iconWriter.submitExisting(name, atlasSlots.get(name));
+                    reusedCount++;
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            itemsToRender.add(stack);
+        }
+        if (reusedCount > 0) {
+            ExporterLogger.info("Reusing {} unchanged icons for {}", reusedCount, namespace);
+        }
+    }
+
+    /**
+     * Keep the atlas cell each item had in the previous export where it is still free and in range,
+     * then give the remaining items the free cells in list order.
+     */
+    private void assignAtlasSlots() {
+        int capacity = itemsToExport.size();
+        boolean[] taken = new boolean[capacity];
+        List<String> unplaced = new ArrayList<>();
+        for (ItemStack stack : itemsToExport) {
+            String name = BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath();
+            int previousSlot = renderCache.getPreviousSlot(name);
+            if (previousSlot >= 0 && previousSlot < capacity && !taken[previousSlot]) {
+                taken[previousSlot] = true;
+                atlasSlots.put(name, previousSlot);
+            } else {
+                unplaced.add(name);
+            }
+        }
+
+        int free = 0;
+        for (String name : unplaced) {
+            while (taken[free]) {
+                free++;
+            }
+            taken[free] = true;
+            atlasSlots.put(name, free);
+        }
+        for (ItemStack stack : itemsToExport) {
+            String name = BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath();
+            renderCache.putSlot(name, atlasSlots.get(name));
+        }
+    }
+
+    /**
+     * Move icons that could not be reused back onto the render queue.
+     *
+     * @return true if any were queued
+     */
+    private boolean requeueFailedReuses() {
+        boolean queued = false;
+        for (String name = iconWriter.pollReuseFailed(); name != null; name = iconWriter.pollReuseFailed()) {
+            for (ItemStack stack : itemsToExport) {
+                if (BuiltInRegistries.ITEM.getKey(stack.getItem()).getPath().equals(name)) {
+                    itemsToRender.add(stack);
+                    reusedCount--;
+                    queued = true;
+                    break;
+                }
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Render a batch of items as a grid into the offscreen target, read it back once
+     * and slice out one icon per item.
+     * With matting, every item is drawn twice in the same target: once on black in the left grid
+     * and once on white in the right grid, so alpha can be recovered from the difference.
+     */
+    private void exportBatch(GuiGraphics guiGraphics, int startIndex, int count) {
+        Minecraft mc = Minecraft.getInstance();
+        ExportMetrics.Stage rendering = metrics.begin(ExportMetrics.STAGE_ICON_RENDER).items(count);
+        int gridPixels = batchGridSize * cellSize;
+        int targetWidth = matting ? gridPixels * 2 : gridPixels;
+
+        if (matting) {
+            batchTarget.setClearColor(0.0F, 0.0F, 0.0F, 1.0F);
+        } else {
+            // Clear to the key color; each grid cell then starts out as background
+            batchTarget.setClearColor(254 / 255.0F, 1.0F, 1.0F, 1.0F);
+        }
+        batchTarget.clear(Minecraft.ON_OSX);
+        batchTarget.bindWrite(true);
+
+        // Project straight onto target pixels so a cell is exactly cellSize wide
+        Matrix4f previousProjection = new Matrix4f(RenderSystem.getProjectionMatrix());
+        VertexSorting previousSorting = RenderSystem.getVertexSorting();
+        RenderSystem.setProjectionMatrix(new Matrix4f().setOrtho(0.0F, targetWidth, gridPixels, 0.0F,
+                1000.0F, 21000.0F), VertexSorting.ORTHOGRAPHIC_Z);
+
+        NativeImage batchImage;
+        try {
+            if (matting) {
+                guiGraphics.fill(gridPixels, 0, targetWidth, gridPixels, 0xFFFFFFFF);
+            }
+            for (int i = 0; i < count; i++) {
+                ItemStack stack = itemsToRender.get(startIndex + i);
+                int cellX = (i % batchGridSize) * cellSize;
+                int cellY = (i / batchGridSize) * cellSize;
+                try {
+                    renderItem(guiGraphics, stack, cellX, cellY, cellSize);
+                    if (matting) {
+                        renderItem(guiGraphics, stack, gridPixels + cellX, cellY, cellSize);
+                    }
+                } catch (Exception e) {
+                    ResourceLocation id = BuiltInRegistries.ITEM.getKey(stack.getItem());
+                    renderCache.remove(id.getPath());
+                    ExporterLogger.error("Failed to render {}: {}", id, e.getMessage());
+                }
+            }
+            mc.renderBuffers().bufferSource().endBatch();
+            rendering.end();
+
+            ExportMetrics.Stage readback = metrics.begin(ExportMetrics.STAGE_ICON_READBACK).items(count);
+            batchImage = Screenshot.takeScreenshot(batchTarget);
+            readback.read((long) batchImage.getWidth() * batchImage.getHeight() * 4).end();
+        } finally {
+            RenderSystem.setProjectionMatrix(previousProjection, previousSorting);
+            batchTarget.unbindWrite();
+            mc.getMainRenderTarget().bindWrite(true);
+        }
+
+        List<IconWriter.Slot> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ResourceLocation id = BuiltInRegistries.ITEM.getKey(itemsToRender.get(startIndex + i).getItem());
+            int cellX = (i % batchGridSize) * cellSize;
+            int cellY = (i / batchGridSize) * cellSize;
+            slots.add(new IconWriter.Slot(id.getPath(), cellX, cellY, cellSize, supersample,
+                    matting ? gridPixels + cellX : -1, atlasSlots.get(id.getPath())));
+        }
+        submitFrame(batchImage, slots);
+    }
+
+    /**
+     * Render item at specified scale with its top-left corner at (x, y).
      */
-    private void renderItem(GuiGraphics gui, ItemStack itemStack, float scale) {
+    private void renderItem(GuiGraphics gui, ItemStack itemStack, int x, int y, float scale) {
         var poseStack = gui.pose();
         poseStack.pushPose();
 
+        poseStack.translate(x, y, 0);
         poseStack.scale(scale / 16, scale / 16, 1);
         poseStack.translate(0, 0, 100);
         poseStack.translate(8, 8, 0);
@@ -172,70 +494,25 @@ public class IconExporterScreen extends Screen {
     }
 
     /**
-     * Take screenshot and export to file.
+     * Take screenshot and queue its top-left corner for export.
      */
-    private void exportImageFromScreenshot(File dir, String baseFilename, int scaleImage, int backgroundColor) throws IOException {
+    private void exportImageFromScreenshot(String baseFilename, int scaleImage) {
+        ExportMetrics.Stage readback = metrics.begin(ExportMetrics.STAGE_ICON_READBACK).items(1);
         NativeImage imageFull = Screenshot.takeScreenshot(Minecraft.getInstance().getMainRenderTarget());
-        NativeImage image = getSubImage(imageFull, scaleImage, scaleImage);
-        imageFull.close();
-
-        // Replace background color with transparency
-        for (int cx = 0; cx < image.getWidth(); cx++) {
-            for (int cy = 0; cy < image.getHeight(); cy++) {
-                int color = image.getPixelRGBA(cx, cy);
-                if (color == backgroundColor) {
-                    image.setPixelRGBA(cx, cy, 0);
-                }
-            }
-        }
-
-        File iconsDir = new File(dir, "icons/rendered");
-        iconsDir.mkdirs();
-        File file = new File(iconsDir, baseFilename + ".png");
-        image.writeToFile(file);
-        image.close();
-    }
-
-    /**
-     * Extract sub-image from top-left corner.
-     */
-    private NativeImage getSubImage(NativeImage image, int width, int height) {
-        NativeImage imageNew = new NativeImage(width, height, false);
-        for (int y = 0; y < height && y < image.getHeight(); y++) {
-            for (int x = 0; x < width && x < image.getWidth(); x++) {
-                imageNew.setPixelRGBA(x, y, image.getPixelRGBA(x, y));
-            }
-        }
-        return imageNew;
+        readback.read((long) imageFull.getWidth() * imageFull.getHeight() * 4).end();
+        submitFrame(imageFull, List.of(new IconWriter.Slot(baseFilename, 0, 0, scaleImage,
+                atlasSlots.get(baseFilename))));
     }
 
     /**
-     * Generate atlas from rendered icons.
+     * Hand a read-back frame to the icon writers, blocking while they are saturated.
      */
-    private void generateRenderedAtlas(File exportDir) throws IOException {
-        File renderedDir = new File(exportDir, "icons/rendered");
-        if (!renderedDir.exists()) return;
-
-        List<TextureEntry> textures = new ArrayList<>();
-        File[] files = renderedDir.listFiles((dir, name) -> name.endsWith(".png"));
-        if (files == null) return;
-
-        for (File file : files) {
-            try {
-                BufferedImage img = ImageIO.read(file);
-                if (img != null) {
-                    String name = file.getName();
-                    name = name.substring(0, name.length() - 4);
-                    textures.add(new TextureEntry(this.namespace + ":" + name, img));
-                }
-            } catch (Exception e) {
-                ExporterLogger.warn("Failed to read rendered icon: {}", file.getName());
-            }
+    private void submitFrame(NativeImage frame, List<IconWriter.Slot> slots) {
+        try {
+            iconWriter.submit(frame, slots);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ExporterLogger.warn("Interrupted while queueing icons for {}", namespace);
         }
-
-        if (textures.isEmpty()) return;
-
-        File iconsDir = new File(exportDir, "icons");
-        AtlasGenerator.generateAtlas(textures, iconsDir, "atlas.png", "data.min.json");
     }
 }
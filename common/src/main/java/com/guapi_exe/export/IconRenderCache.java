@@ -0,0 +1,228 @@
+package com.guapi_exe.export;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.Hashing;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.ItemTransform;
+import net.minecraft.client.resources.model.BakedModel;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.item.ItemDisplayContext;
+import net.minecraft.world.item.ItemStack;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers what every rendered icon was rendered from, so unchanged items can reuse
+ * their existing PNG instead of being rendered again.
+ * An item's key covers its baked GUI model (quad geometry, faces, tints and GUI transform),
+ * the names and file contents of the sprites it uses, and the render settings.
+ * Texture coordinates are left out because they depend on where the sprite landed in the
+ * block atlas, which can shift whenever any pack changes.
+ * Models with a custom renderer cannot be inspected and are always rendered.
+ * The cache also remembers the atlas cell of every icon, so icons keep their place between exports.
+ */
+public class IconRenderCache {
+    public static final String FILE_NAME = "render_cache.json";
+    private static final int FORMAT_VERSION = 1;
+    // Vertex layout of baked quads (DefaultVertexFormat.BLOCK): x, y, z, color, u, v, light, normal
+    private static final int UV_OFFSET = 4;
+    private static final int UV_LENGTH = 2;
+
+    private final Map<String, String> previous = new HashMap<>();
+    private final Map<String, String> current = new LinkedHashMap<>();
+    private final Map<String, Integer> previousSlots = new HashMap<>();
+    private final Map<String, Integer> currentSlots = new LinkedHashMap<>();
+    private final Map<ResourceLocation, String> spriteHashes = new HashMap<>();
+
+    /**
+     * Load the cache from an icons directory. A missing or unreadable cache is empty.
+     */
+    public static IconRenderCache load(File iconsDir) {
+        IconRenderCache cache = new IconRenderCache();
+        File file = new File(iconsDir, FILE_NAME);
+        if (!file.isFile()) {
+            return cache;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            if (root.has("format") && root.get("format").getAsInt() == FORMAT_VERSION && root.has("entries")) {
+                for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject("entries").entrySet()) {
+                    cache.previous.put(entry.getKey(), entry.getValue().getAsString());
+                }
+                // Caches written before atlas cells were recorded have no slots
+                if (root.has("slots")) {
+                    for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject("slots").entrySet()) {
+                        cache.previousSlots.put(entry.getKey(), entry.getValue().getAsInt());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            ExporterLogger.warn("Ignoring unreadable icon render cache {}: {}", file, e.getMessage());
+        }
+        return cache;
+    }
+
+    /**
+     * Compute the render key of an item. Must be called on the render thread.
+     *
+     * @param renderSettings Every setting that affects the rendered pixels (size, mode, sampling)
+     * @return Hex key, or null if the model uses a custom renderer and cannot be cached
+     */
+    public String computeKey(ResourceLocation id, ItemStack stack, BakedModel model, String renderSettings) {
+        if (model.isCustomRenderer()) {
+            return null;
+        }
+
+        MessageDigest digest = Hashing.sha1();
+        update(digest, id.toString());
+        update(digest, model.getClass().getName());
+        update(digest, renderSettings + "/" + model.usesBlockLight() + "/" + model.isGui3d());
+
+        ItemTransform transform = model.getTransforms().getTransform(ItemDisplayContext.GUI);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.putFloat(transform.rotation.x()).putFloat(transform.rotation.y()).putFloat(transform.rotation.z());
+        buffer.putFloat(transform.translation.x()).putFloat(transform.translation.y()).putFloat(transform.translation.z());
+        buffer.putFloat(transform.scale.x()).putFloat(transform.scale.y()).putFloat(transform.scale.z());
+        buffer.flip();
+        digest.update(buffer);
+
+        // Same seed the item renderer uses
+        RandomSource random = RandomSource.create();
+        hashQuads(digest, stack, model, null, random);
+        for (Direction direction : Direction.values()) {
+            hashQuads(digest, stack, model, direction, random);
+        }
+        return Hashing.toHex(digest.digest());
+    }
+
+    private void hashQuads(MessageDigest digest, ItemStack stack, BakedModel model, Direction direction,
+                           RandomSource random) {
+        random.setSeed(42L);
+        update(digest, String.valueOf(direction));
+        for (BakedQuad quad : model.getQuads(null, direction, random)) {
+            int[] vertices = quad.getVertices();
+            int stride = vertices.length / 4;
+            ByteBuffer buffer = ByteBuffer.allocate(vertices.length * Integer.BYTES + 16);
+            for (int i = 0; i < vertices.length; i++) {
+                int element = i % stride;
+                if (element < UV_OFFSET || element >= UV_OFFSET + UV_LENGTH) {
+                    buffer.putInt(vertices[i]);
+                }
+            }
+            buffer.putInt(quad.isShade() ? 1 : 0);
+            buffer.putInt(quad.isTinted()
+                    ? Minecraft.getInstance().getItemColors().getColor(stack, quad.getTintIndex()) : -1);
+            buffer.flip();
+            digest.update(buffer);
+
+            ResourceLocation sprite = quad.getSprite().contents().name();
+            update(digest, sprite.toString());
+            update(digest, spriteHash(sprite));
+        }
+    }
+
+    /**
+     * Hash of the texture file behind a sprite, memoized for the lifetime of the cache.
+     */
+    private String spriteHash(ResourceLocation sprite) {
+        return spriteHashes.computeIfAbsent(sprite, name -> {
+            ResourceLocation file = new ResourceLocation(name.getNamespace(), "textures/" + name.getPath() + ".png");
+            Optional<Resource> resource = Minecraft.getInstance().getResourceManager().getResource(file);
+            if (resource.isEmpty()) {
+                return "missing";
+            }
+            try (InputStream in = resource.get().open()) {
+                return Hashing.sha1Hex(in.readAllBytes());
+            } catch (IOException e) {
+                return "unreadable";
+            }
+        });
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Whether an icon was last rendered from the same key.
+     */
+    public boolean isCurrent(String name, String key) {
+        return key != null && key.equals(previous.get(name));
+    }
+
+    /**
+     * Record the key an icon now corresponds to.
+     */
+    public void put(String name, String key) {
+        if (key != null) {
+            current.put(name, key);
+        }
+    }
+
+    /**
+     * Forget the key of an icon that failed to render or write, so it is rendered next time.
+     */
+    public void remove(String name) {
+        current.remove(name);
+    }
+
+    /**
+     * Atlas cell of an icon in the previous export, or -1 if it had none.
+     */
+    public int getPreviousSlot(String name) {
+        return previousSlots.getOrDefault(name, -1);
+    }
+
+    /**
+     * Record the atlas cell an icon now occupies.
+     */
+    public void putSlot(String name, int slot) {
+        currentSlots.put(name, slot);
+    }
+
+    /**
+     * Write the recorded keys and atlas cells, replacing the previous cache.
+     */
+    public void save(File iconsDir) throws IOException {
+        iconsDir.mkdirs();
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(iconsDir, FILE_NAME)), StandardCharsets.UTF_8)))) {
+            writer.beginObject();
+            writer.name("format").value(FORMAT_VERSION);
+            writer.name("entries").beginObject();
+            for (Map.Entry<String, String> entry : current.entrySet()) {
+                writer.name(entry.getKey()).value(entry.getValue());
+            }
+            writer.endObject();
+            writer.name("slots").beginObject();
+            for (Map.Entry<String, Integer> entry : currentSlots.entrySet()) {
+                writer.name(entry.getKey()).value(entry.getValue());
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+    }
+}
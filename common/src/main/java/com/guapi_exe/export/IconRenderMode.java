@@ -0,0 +1,25 @@
+package com.guapi_exe.export;
+
+/**
+ * How item icons are rendered and read back from the GPU.
+ */
+public enum IconRenderMode {
+    /** Render each item into the main window and read back the whole window per item */
+    SCREENSHOT,
+
+    /** Render a grid of items into a dedicated offscreen target and read it back once per batch */
+    OFFSCREEN;
+
+    /**
+     * Look up a mode by its case-insensitive name.
+     * @return The matching mode, or null if none matches
+     */
+    public static IconRenderMode byName(String name) {
+        for (IconRenderMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,241 @@
+package com.guapi_exe.export;
+
+import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.NativePixels;
+import com.guapi_exe.util.PixelBuffer;
+import com.guapi_exe.util.PngEncoder;
+import com.mojang.blaze3d.platform.NativeImage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool that turns read-back frames into icon files.
+ * The render thread only submits raw frames; cropping, background removal,
+ * PNG encoding (with the configured {@link PngCompression}) and file writes all happen on the workers.
+ * Cropping and background removal run as one row-major pass over native memory.
+ * Each finished icon is also fed straight into an {@link IconAtlasBuilder}.
+ * Icons reused from a previous export are decoded from their file on the same workers.
+ * Time spent cropping, encoding and writing is recorded as the icon encode stage.
+ */
+public class IconWriter {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+    private final Queue<String> reuseFailed = new ConcurrentLinkedQueue<>();
+    private final File iconsDir;
+    private final int backgroundColor;
+    private final IconAtlasBuilder atlas;
+    private final ExportMetrics.NamespaceMetrics metrics;
+    private final PngEncoder encoder = ExportSettings.getInstance().getPngCompression().getEncoder();
+
+    /**
+     * @param threads         Number of worker threads
+     * @param maxPending      Maximum number of frames queued or in flight before submit blocks
+     * @param iconsDir        Directory icon files are written to
+     * @param backgroundColor Pixel value (as returned by getPixelRGBA) to make transparent
+     * @param atlas           Atlas every written icon is added to, or null
+     * @param metrics         Recorder of the namespace the icons belong to
+     */
+    public IconWriter(int threads, int maxPending, File iconsDir, int backgroundColor, IconAtlasBuilder atlas,
+                      ExportMetrics.NamespaceMetrics metrics) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Icon Writer #" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.permits = new Semaphore(maxPending);
+        this.iconsDir = iconsDir;
+        this.backgroundColor = backgroundColor;
+        this.atlas = atlas;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Hand a read-back frame to the workers. Takes ownership of the image and closes it
+     * once every slot has been written. Blocks while too many frames are pending.
+     *
+     * @param frame Frame containing one or more icons
+     * @param slots Location and file name of each icon within the frame
+     */
+    public void submit(NativeImage frame, List<Slot> slots) throws InterruptedException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            frame.close();
+            throw e;
+        }
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            ExportMetrics.Stage encoding = metrics.begin(ExportMetrics.STAGE_ICON_ENCODE);
+            try {
+                for (Slot slot : slots) {
+                    try (NativeImage icon = resolve(frame, slot)) {
+                        if (atlas != null) {
+                            atlas.add(slot.getAtlasSlot(), slot.getName(), icon);
+                        }
+                        File file = new File(iconsDir, slot.getName() + ".png");
+                        encoder.write(icon, file);
+                        encoding.items(1).written(file.length());
+                    } catch (Exception e) {
+                        failed.add(slot.getName());
+                        ExporterLogger.error("Failed to write icon {}: {}", slot.getName(), e.getMessage());
+                    }
+                }
+            } finally {
+                encoding.end();
+                frame.close();
+                pending.decrementAndGet();
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Add an icon written by a previous export to the atlas without rendering it.
+     * Icons that cannot be read back are reported by {@link #pollReuseFailed} to be rendered instead.
+     * Blocks while too many tasks are pending.
+     *
+     * @param name      Icon name, matching its file in the icons directory
+     * @param atlasSlot Atlas cell of the icon
+     */
+    public void submitExisting(String name, int atlasSlot) throws InterruptedException {
+        permits.acquire();
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                if (atlas != null) {
+                    try (PixelBuffer icon = PixelBuffer.decode(Files.readAllBytes(new File(iconsDir, name + ".png").toPath()))) {
+                        atlas.add(atlasSlot, name, icon);
+                    }
+                }
+            } catch (Exception e) {
+                reuseFailed.add(name);
+                ExporterLogger.warn("Failed to reuse icon {}, rendering it again: {}", name, e.getMessage());
+            } finally {
+                pending.decrementAndGet();
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Whether an icon file already exists from a previous export.
+     */
+    public boolean hasIcon(String name) {
+        return new File(iconsDir, name + ".png").isFile();
+    }
+
+    /**
+     * Take the name of an icon that could not be reused, or null if there is none.
+     */
+    public String pollReuseFailed() {
+        return reuseFailed.poll();
+    }
+
+    /**
+     * Names of icons that could not be written.
+     */
+    public Set<String> getFailed() {
+        return failed;
+    }
+
+    private NativeImage resolve(NativeImage frame, Slot slot) {
+        if (slot.getSupersample() == 1 && slot.getMatteX() < 0) {
+            return NativePixels.cropKeyed(frame, slot.getX(), slot.getY(), slot.getSize(), slot.getSize(),
+                    backgroundColor);
+        }
+        return NativePixels.resolve(frame, slot.getX(), slot.getY(), slot.getSize(), slot.getMatteX(),
+                slot.getSupersample(), backgroundColor);
+    }
+
+    /**
+     * Whether every submitted frame has been fully written.
+     */
+    public boolean isIdle() {
+        return pending.get() == 0;
+    }
+
+    /**
+     * Stop accepting work. Frames already submitted are still written.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Location of a single icon within a read-back frame.
+     */
+    public static class Slot {
+        private final String name;
+        private final int x;
+        private final int y;
+        private final int size;
+        private final int supersample;
+        private final int matteX;
+        private final int atlasSlot;
+
+        /**
+         * @param atlasSlot Atlas cell of the icon
+         */
+        public Slot(String name, int x, int y, int size, int atlasSlot) {
+            this(name, x, y, size, 1, -1, atlasSlot);
+        }
+
+        /**
+         * @param size        Width and height of the icon in the frame
+         * @param supersample Factor the icon is box-filtered down by
+         * @param matteX      Left edge of a copy of the icon rendered on white (this one being on black),
+         *                    or -1 to key the background color instead
+         * @param atlasSlot   Atlas cell of the icon
+         */
+        public Slot(String name, int x, int y, int size, int supersample, int matteX, int atlasSlot) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.size = size;
+            this.supersample = supersample;
+            this.matteX = matteX;
+            this.atlasSlot = atlasSlot;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getSupersample() {
+            return supersample;
+        }
+
+        public int getMatteX() {
+            return matteX;
+        }
+
+        public int getAtlasSlot() {
+            return atlasSlot;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.guapi_exe.export;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.guapi_exe.util.ExporterLogger;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams a JSON object of named entries to a file, one entry at a time.
+ * Each entry is rendered into a small buffer first and only appended once it is complete,
+ * so a malformed source can never leave the bundle half-written, and peak memory is bounded
+ * by the largest single entry rather than the whole bundle.
+ * The output file is only created once the first entry has been written.
+ * Names are unique: a later entry with a name already written is skipped with a warning,
+ * e.g. a JSON model and an OBJ model of the same name.
+ */
+public class JsonBundleWriter implements Closeable {
+
+    /**
+     * Writes one JSON value.
+     */
+    @FunctionalInterface
+    public interface ValueWriter {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private final File outputFile;
+    private final Set<String> names = new HashSet<>();
+    private JsonWriter writer;
+    private int count;
+    private long bytesWritten;
+
+    public JsonBundleWriter(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Copy a JSON document token by token into the bundle under the given name.
+     *
+     * @throws IOException If reading fails or the source is not a single JSON value
+     */
+    public void copyEntry(String name, Reader source) throws IOException {
+        writeEntry(name, out -> {
+            JsonReader reader = new JsonReader(source);
+            reader.setLenient(true);
+            copyValue(reader, out);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document");
+            }
+        });
+    }
+
+    /**
+     * Write a value produced by the callback into the bundle under the given name.
+     * The callback is not run if the name was already written.
+     *
+     * @throws IOException If the callback fails; nothing is written in that case
+     */
+    public void writeEntry(String name, ValueWriter value) throws IOException {
+        if (names.contains(name)) {
+            ExporterLogger.warn("Skipping duplicate entry {} in {}", name, outputFile);
+            return;
+        }
+
+        StringWriter buffer = new StringWriter();
+        JsonWriter entryWriter = new JsonWriter(buffer);
+        entryWriter.setLenient(true);
+        entryWriter.setSerializeNulls(false);
+        value.write(entryWriter);
+        entryWriter.flush();
+
+        if (writer == null) {
+            outputFile.getParentFile().mkdirs();
+            writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8)));
+            writer.setLenient(true);
+            writer.beginObject();
+        }
+        writer.name(name).jsonValue(buffer.toString());
+        names.add(name);
+        count++;
+    }
+
+    /**
+     * Number of entries written so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Size of the bundle file written, once closed; 0 if no entry was written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.endObject();
+            writer.close();
+            writer = null;
+            bytesWritten = outputFile.length();
+        }
+    }
+
+    /**
+     * Copy exactly one JSON value from the reader to the writer.
+     */
+    public static void copyValue(JsonReader in, JsonWriter out) throws IOException {
+        int depth = 0;
+        do {
+            switch (in.peek()) {
+                case BEGIN_ARRAY:
+                    in.beginArray();
+                    out.beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    in.endArray();
+                    out.endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    in.beginObject();
+                    out.beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    in.endObject();
+                    out.endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    out.name(in.nextName());
+                    break;
+                case STRING:
+                    out.value(in.nextString());
+                    break;
+                case NUMBER:
+                    // Keep the number exactly as written in the source
+                    out.jsonValue(in.nextString());
+                    break;
+                case BOOLEAN:
+                    out.value(in.nextBoolean());
+                    break;
+                case NULL:
+                    in.nextNull();
+                    out.nullValue();
+                    break;
+                case END_DOCUMENT:
+                default:
+                    throw new JsonSyntaxException("Unexpected end of document");
+            }
+        } while (depth > 0);
+    }
+}
@@ -2,6 +2,7 @@ package com.guapi_exe.export;
 
 import com.google.gson.*;
 import com.guapi_exe.util.ExporterLogger;
+import com.guapi_exe.util.ResourceCopier;
 import dev.architectury.platform.Mod;
 import dev.architectury.platform.Platform;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -12,7 +13,6 @@ import net.minecraft.world.level.block.Block;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -27,102 +27,118 @@ public final class ModelExporter {
     }
 
     /**
-     * Export block state definitions.
+     * Export block state definitions, adding the bytes read and written to a stage.
+     * Each blockstate is streamed straight into the bundle as it is read.
+     * @param resources Blockstate resources of this namespace only
+     * @return Files written
      */
-    public static void exportBlockDefinitions(Map<ResourceLocation, Resource> resources,
-                                               File exportDir, String namespace) throws IOException {
-        JsonObject root = new JsonObject();
-        boolean hasData = false;
+    public static List<File> exportBlockDefinitions(Map<ResourceLocation, Resource> resources, File exportDir,
+                                                    String namespace, ExportMetrics.Stage stage) throws IOException {
+        File outputFile = new File(exportDir, "assets/block_definition/data.min.json");
+        JsonBundleWriter bundle = new JsonBundleWriter(outputFile);
+        try (bundle) {
+            for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+                ResourceLocation location = entry.getKey();
 
-        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
-            ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
-
-            try (Reader reader = entry.getValue().openAsReader()) {
-                JsonElement json = JsonParser.parseReader(reader);
-                String path = location.getPath();
-                String name = path.substring("blockstates/".length(), path.length() - ".json".length());
-                root.add(name, json);
-                hasData = true;
-            } catch (Exception e) {
-                ExporterLogger.error("Failed to parse blockstate {}: {}", location, e.getMessage());
+                try (Reader reader = openReader(entry.getValue(), stage)) {
+                    String path = location.getPath();
+                    String name = path.substring("blockstates/".length(), path.length() - ".json".length());
+                    bundle.copyEntry(name, reader);
+                } catch (Exception e) {
+                    ExporterLogger.error("Failed to parse blockstate {}: {}", location, e.getMessage());
+                }
             }
-        }
 
-        if (hasData) {
-            File outputFile = new File(exportDir, "assets/block_definition/data.min.json");
-            outputFile.getParentFile().mkdirs();
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
-                GSON.toJson(root, writer);
+            if (bundle.getCount() > 0) {
+                ExporterLogger.info("Exported block definitions for {}", namespace);
             }
-            ExporterLogger.info("Exported block definitions for {}", namespace);
         }
+        stage.written(bundle.getBytesWritten());
+        return bundle.getCount() > 0 ? List.of(outputFile) : List.of();
     }
 
     /**
      * Export block models.
+     * @param resources Block model resources of this namespace only
      */
     public static void exportBlockModels(Map<ResourceLocation, Resource> resources,
-                                          File exportDir, String namespace) throws IOException {
-        JsonObject root = new JsonObject();
-        boolean hasData = false;
-
-        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
-            ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
-
-            String path = location.getPath();
-
-            if (path.endsWith(".json")) {
-                hasData |= exportJsonModel(entry, root, location, path, "models/");
-            } else if (path.endsWith(".obj")) {
-                hasData |= exportObjModel(entry, root, path, "models/");
-            } else if (path.endsWith(".mtl")) {
-                exportRawFile(entry, exportDir, namespace, path);
-            }
-        }
+                                         File exportDir, String namespace) throws IOException {
+        exportBlockModels(resources, exportDir, namespace, ExportMetrics.DISCARD.begin(ExportMetrics.STAGE_MODELS));
+    }
 
-        if (hasData) {
-            File outputFile = new File(exportDir, "assets/model/data.min.json");
-            outputFile.getParentFile().mkdirs();
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
-                GSON.toJson(root, writer);
-            }
+    /**
+     * Export block models, adding the bytes read and written to a stage.
+     * @param resources Block model resources of this namespace only
+     * @return Files written
+     */
+    public static List<File> exportBlockModels(Map<ResourceLocation, Resource> resources, File exportDir,
+                                               String namespace, ExportMetrics.Stage stage) throws IOException {
+        List<File> written = exportModels(resources, new File(exportDir, "assets/model/data.min.json"), exportDir,
+                namespace, stage);
+        if (!written.isEmpty()) {
             ExporterLogger.info("Exported block models for {}", namespace);
         }
+        return written;
     }
 
     /**
-     * Export item models.
+     * Export item models, adding the bytes read and written to a stage.
+     * @param resources Item model resources of this namespace only
+     * @return Files written
      */
-    public static void exportItemModels(Map<ResourceLocation, Resource> resources,
-                                         File exportDir, String namespace) throws IOException {
-        JsonObject root = new JsonObject();
-        boolean hasData = false;
-
-        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
-            ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
+    public static List<File> exportItemModels(Map<ResourceLocation, Resource> resources, File exportDir,
+                                              String namespace, ExportMetrics.Stage stage) throws IOException {
+        List<File> written = exportModels(resources, new File(exportDir, "assets/item_definition/data.min.json"),
+                exportDir, namespace, stage);
+        if (!written.isEmpty()) {
+            ExporterLogger.info("Exported item models for {}", namespace);
+        }
+        return written;
+    }
 
-            String path = location.getPath();
+    /**
+     * Stream JSON and OBJ models into one bundle file and copy MTL files alongside.
+     * MTL files are copied after the bundle, one pack at a time, through {@link ResourceCopier}.
+     * When binary meshes are enabled, OBJ geometry goes to {@code mesh/<name>.bin} next to
+     * the bundle and the bundle entry only holds the header describing it.
+     * @return Files written: the bundle if any model was written, mesh files and MTL copies
+     */
+    private static List<File> exportModels(Map<ResourceLocation, Resource> resources, File outputFile,
+                                           File exportDir, String namespace,
+                                           ExportMetrics.Stage stage) throws IOException {
+        boolean binaryMeshes = ExportSettings.getInstance().isBinaryMeshes();
+        Map<ResourceLocation, Resource> rawFiles = new LinkedHashMap<>();
+        List<File> written = new ArrayList<>();
+        JsonBundleWriter bundle = new JsonBundleWriter(outputFile);
+        try (bundle) {
+            for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+                ResourceLocation location = entry.getKey();
+                String path = location.getPath();
 
-            if (path.endsWith(".json")) {
-                hasData |= exportJsonModel(entry, root, location, path, "models/");
-            } else if (path.endsWith(".obj")) {
-                hasData |= exportObjModel(entry, root, path, "models/");
-            } else if (path.endsWith(".mtl")) {
-                exportRawFile(entry, exportDir, namespace, path);
+                if (path.endsWith(".json")) {
+                    exportJsonModel(entry, bundle, location, path, "models/", stage);
+                } else if (path.endsWith(".obj")) {
+                    exportObjModel(entry, bundle, path, "models/",
+                            binaryMeshes ? outputFile.getParentFile() : null, stage, written);
+                } else if (path.endsWith(".mtl")) {
+                    rawFiles.put(location, entry.getValue());
+                }
             }
-        }
-
-        if (hasData) {
-            File outputFile = new File(exportDir, "assets/item_definition/data.min.json");
-            outputFile.getParentFile().mkdirs();
-            try (Writer writer = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
-                GSON.toJson(root, writer);
+            long copied = ResourceCopier.copyAll(rawFiles, location ->
+                    new File(exportDir, "assets/" + namespace + "/" + location.getPath()).toPath());
+            stage.read(copied).written(copied);
+            for (ResourceLocation location : rawFiles.keySet()) {
+                File copy = new File(exportDir, "assets/" + namespace + "/" + location.getPath());
+                if (copy.isFile()) {
+                    written.add(copy);
+                }
             }
-            ExporterLogger.info("Exported item models for {}", namespace);
         }
+        stage.written(bundle.getBytesWritten());
+        if (bundle.getCount() > 0) {
+            written.add(0, outputFile);
+        }
+        return written;
     }
 
     /**
@@ -155,9 +171,16 @@ public final class ModelExporter {
     }
 
     /**
-     * Export metadata (items list, config with mod info).
+     * Version of the mod owning a namespace, or null if no mod is loaded under that id.
      */
-    public static void exportMetadata(File exportDir, String namespace) {
+    public static String getModVersion(String namespace) {
+        return Platform.getOptionalMod(namespace).map(Mod::getVersion).orElse(null);
+    }
+
+    /**
+     * Export metadata (items list, config with mod info), adding the bytes read and written to a stage.
+     */
+    public static void exportMetadata(File exportDir, String namespace, ExportMetrics.Stage stage) {
         try {
             JsonArray itemsArray = new JsonArray();
             int itemCount = 0;
@@ -174,6 +197,7 @@ public final class ModelExporter {
             try (Writer writer = new OutputStreamWriter(new FileOutputStream(itemsFile), StandardCharsets.UTF_8)) {
                 GSON.toJson(itemsArray, writer);
             }
+            stage.written(itemsFile.length());
 
             int blockCount = 0;
             for (Block block : BuiltInRegistries.BLOCK) {
@@ -216,7 +240,8 @@ public final class ModelExporter {
                     configJson.addProperty("homepage", homepage));
                 
                 // Export mod icon
-                exportModIcon(mod, exportDir, namespace);
+                long iconBytes = exportModIcon(mod, exportDir, namespace);
+                stage.read(iconBytes).written(iconBytes);
             }
             
             configJson.addProperty("blockCount", blockCount);
@@ -226,6 +251,7 @@ public final class ModelExporter {
             try (Writer writer = new OutputStreamWriter(new FileOutputStream(configFile), StandardCharsets.UTF_8)) {
                 GSON.toJson(configJson, writer);
             }
+            stage.written(configFile.length());
 
             ExporterLogger.info("Exported metadata for {} (blocks: {}, items: {})", namespace, blockCount, itemCount);
         } catch (IOException e) {
@@ -235,8 +261,9 @@ public final class ModelExporter {
 
     /**
      * Export mod icon if available.
+     * @return Number of bytes written
      */
-    private static void exportModIcon(Mod mod, File exportDir, String namespace) {
+    private static long exportModIcon(Mod mod, File exportDir, String namespace) {
         try {
             // Try to get logo file path
             Optional<String> logoPath = mod.getLogoFile(128);
@@ -246,18 +273,9 @@ public final class ModelExporter {
                 Optional<Path> iconResource = mod.findResource(pathParts);
                 
                 if (iconResource.isPresent()) {
-                    Path sourcePath = iconResource.get();
-                    File iconFile = new File(exportDir, "icon.png");
-                    
-                    try (InputStream in = Files.newInputStream(sourcePath);
-                         OutputStream out = new FileOutputStream(iconFile)) {
-                        byte[] buffer = new byte[8192];
-                        int read;
-                        while ((read = in.read(buffer)) != -1) {
-                            out.write(buffer, 0, read);
-                        }
-                    }
+                    long copied = ResourceCopier.copy(iconResource.get(), new File(exportDir, "icon.png").toPath());
                     ExporterLogger.info("Exported mod icon for {}", namespace);
+                    return copied;
                 } else {
                     ExporterLogger.debug("Mod icon resource not found for {}: {}", namespace, logoPath.get());
                 }
@@ -267,49 +285,78 @@ public final class ModelExporter {
         } catch (Exception e) {
             ExporterLogger.warn("Failed to export mod icon for {}: {}", namespace, e.getMessage());
         }
+        return 0;
     }
 
-    private static boolean exportJsonModel(Map.Entry<ResourceLocation, Resource> entry, JsonObject root,
-                                           ResourceLocation location, String path, String prefix) {
-        try (Reader reader = entry.getValue().openAsReader()) {
-            JsonElement json = JsonParser.parseReader(reader);
+    private static void exportJsonModel(Map.Entry<ResourceLocation, Resource> entry, JsonBundleWriter bundle,
+                                        ResourceLocation location, String path, String prefix,
+                                        ExportMetrics.Stage stage) {
+        try (Reader reader = openReader(entry.getValue(), stage)) {
             String name = path.substring(prefix.length(), path.length() - ".json".length());
-            root.add(name, json);
-            return true;
+            bundle.copyEntry(name, reader);
         } catch (Exception e) {
             ExporterLogger.error("Failed to parse model {}: {}", location, e.getMessage());
-            return false;
         }
     }
 
-    private static boolean exportObjModel(Map.Entry<ResourceLocation, Resource> entry, JsonObject root,
-                                          String path, String prefix) {
-        try (InputStream in = entry.getValue().open()) {
-            JsonObject objJson = ObjConverter.convertObjToJson(in);
+    private static void exportObjModel(Map.Entry<ResourceLocation, Resource> entry, JsonBundleWriter bundle,
+                                       String path, String prefix, File binaryDir, ExportMetrics.Stage stage,
+                                       List<File> written) {
+        try (InputStream in = new CountingInputStream(entry.getValue().open(), stage)) {
+            ObjMesh mesh = ObjConverter.parse(in);
             String name = path.substring(prefix.length(), path.length() - ".obj".length());
-            root.add(name, objJson);
-            return true;
+            if (binaryDir == null) {
+                bundle.writeEntry(name, mesh::writeJson);
+                return;
+            }
+            PackedMesh packed = PackedMesh.of(mesh);
+            String uri = "mesh/" + name + ".bin";
+            File binFile = new File(binaryDir, uri);
+            binFile.getParentFile().mkdirs();
+            packed.write(binFile);
+            stage.written(binFile.length());
+            written.add(binFile);
+            bundle.writeEntry(name, writer -> packed.writeHeader(writer, uri));
         } catch (Exception e) {
             ExporterLogger.error("Failed to convert obj model: {}", e.getMessage());
-            return false;
         }
     }
 
-    private static void exportRawFile(Map.Entry<ResourceLocation, Resource> entry, File exportDir,
-                                      String namespace, String path) {
-        try {
-            File rawFile = new File(exportDir, "assets/" + namespace + "/" + path);
-            rawFile.getParentFile().mkdirs();
-            try (InputStream in = entry.getValue().open();
-                 OutputStream out = new FileOutputStream(rawFile)) {
-                byte[] buffer = new byte[8192];
-                int read;
-                while ((read = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, read);
-                }
+    /**
+     * Open a resource as UTF-8 text, adding the bytes read to a stage.
+     */
+    private static Reader openReader(Resource resource, ExportMetrics.Stage stage) throws IOException {
+        return new BufferedReader(new InputStreamReader(new CountingInputStream(resource.open(), stage),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds every byte read to a stage.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final ExportMetrics.Stage stage;
+
+        private CountingInputStream(InputStream in, ExportMetrics.Stage stage) {
+            super(in);
+            this.stage = stage;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                stage.read(1);
             }
-        } catch (Exception e) {
-            ExporterLogger.error("Failed to export raw file {}: {}", path, e.getMessage());
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                stage.read(count);
+            }
+            return count;
         }
     }
 }
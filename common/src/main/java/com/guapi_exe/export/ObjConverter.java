@@ -1,94 +1,327 @@
 package com.guapi_exe.export;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
- * Converts OBJ model files to JSON format.
+ * Parses OBJ model files into an {@link ObjMesh}.
+ * Lines are tokenized in place from a reusable byte buffer and values are parsed straight
+ * into primitive arrays, so no strings or boxed numbers are created per element.
  */
 public final class ObjConverter {
+    // Every power of ten up to 1e10 is exact as a float (5^10 < 2^24)
+    private static final float[] POWERS_OF_TEN = {
+            1e0F, 1e1F, 1e2F, 1e3F, 1e4F, 1e5F, 1e6F, 1e7F, 1e8F, 1e9F, 1e10F
+    };
+    // Largest mantissa a float holds exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 24;
+    private static final int MAX_MANTISSA_DIGITS = 18;
 
     private ObjConverter() {
         // Utility class, no instantiation
     }
 
     /**
-     * Convert an OBJ file to a JSON representation.
+     * Parse an OBJ file.
+     * Face indices are resolved to 0-based positions, including relative (negative) indices
+     * and the {@code v}, {@code v/vt}, {@code v//vn} and {@code v/vt/vn} forms.
      *
      * @param inputStream Input stream of the OBJ file
-     * @return JsonObject representing the model
-     * @throws IOException If reading fails
+     * @return The parsed mesh
+     * @throws IOException If reading fails or a face refers to an element not defined before it
+     * @throws NumberFormatException If a value cannot be parsed
+     */
+    public static ObjMesh parse(InputStream inputStream) throws IOException {
+        Parser parser = new Parser();
+        LineReader reader = new LineReader(inputStream);
+        while (reader.next()) {
+            parser.parseLine(reader.line, reader.length);
+        }
+        return parser.toMesh();
+    }
+
+    /**
+     * Reads lines into a single growable byte buffer.
      */
-    public static JsonObject convertObjToJson(InputStream inputStream) throws IOException {
-        JsonObject model = new JsonObject();
-        JsonArray vertices = new JsonArray();
-        JsonArray texCoords = new JsonArray();
-        JsonArray normals = new JsonArray();
-        JsonArray faces = new JsonArray();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) continue;
-
-                String[] parts = line.split("\\s+");
-                if (parts.length == 0) continue;
-
-                switch (parts[0]) {
-                    case "v":
-                        parseVertex(parts, vertices);
-                        break;
-                    case "vt":
-                        parseTexCoord(parts, texCoords);
-                        break;
-                    case "vn":
-                        parseNormal(parts, normals);
-                        break;
-                    case "f":
-                        parseFace(parts, faces);
-                        break;
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        byte[] line = new byte[256];
+        int length;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            length = 0;
+            boolean read = false;
+            while (true) {
+                if (position >= limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position - start);
+                if (position < limit) {
+                    position++; // Skip the newline
+                    return true;
                 }
             }
         }
 
-        model.addProperty("loader", "forge:obj");
-        model.add("vertices", vertices);
-        model.add("tex_coords", texCoords);
-        model.add("normals", normals);
-        model.add("faces", faces);
-        return model;
+        private void append(int start, int count) {
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            System.arraycopy(buffer, start, line, length, count);
+            length += count;
+        }
     }
 
-    private static void parseVertex(String[] parts, JsonArray vertices) {
-        for (int i = 1; i < 4 && i < parts.length; i++) {
-            vertices.add(Float.parseFloat(parts[i]));
+    private static final class Parser {
+        private float[] positions = new float[3 * 256];
+        private float[] texCoords = new float[2 * 256];
+        private float[] normals = new float[3 * 256];
+        private int[] indices = new int[3 * 1024];
+        private int[] faceSizes = new int[256];
+        private int positionCount;
+        private int texCoordCount;
+        private int normalCount;
+        private int indexCount;
+        private int faceCount;
+
+        // Cursor into the current line
+        private byte[] line;
+        private int pos;
+        private int end;
+
+        void parseLine(byte[] line, int length) throws IOException {
+            this.line = line;
+            this.pos = 0;
+            this.end = length;
+            skipSpaces();
+            if (pos >= end || line[pos] == '#') {
+                return;
+            }
+            int keywordStart = pos;
+            skipToken();
+            int keywordLength = pos - keywordStart;
+            byte first = line[keywordStart];
+            if (keywordLength == 1 && first == 'v') {
+                positions = ensure(positions, positionCount + 3);
+                positionCount = readFloats(positions, positionCount, 3);
+            } else if (keywordLength == 1 && first == 'f') {
+                parseFace();
+            } else if (keywordLength == 2 && first == 'v' && line[keywordStart + 1] == 't') {
+                texCoords = ensure(texCoords, texCoordCount + 2);
+                texCoordCount = readFloats(texCoords, texCoordCount, 2);
+            } else if (keywordLength == 2 && first == 'v' && line[keywordStart + 1] == 'n') {
+                normals = ensure(normals, normalCount + 3);
+                normalCount = readFloats(normals, normalCount, 3);
+            }
         }
-    }
 
-    private static void parseTexCoord(String[] parts, JsonArray texCoords) {
-        for (int i = 1; i < 3 && i < parts.length; i++) {
-            texCoords.add(Float.parseFloat(parts[i]));
+        /**
+         * Read up to {@code count} floats into the array, padding missing ones with zero
+         * so every element keeps a fixed stride. Extra values (e.g. w or vertex colors) are ignored.
+         */
+        private int readFloats(float[] target, int offset, int count) {
+            for (int i = 0; i < count; i++) {
+                skipSpaces();
+                if (pos >= end) {
+                    target[offset + i] = 0.0F;
+                    continue;
+                }
+                int start = pos;
+                skipToken();
+                target[offset + i] = parseFloat(line, start, pos);
+            }
+            return offset + count;
+        }
+
+        private void parseFace() throws IOException {
+            int corners = 0;
+            while (true) {
+                skipSpaces();
+                if (pos >= end) {
+                    break;
+                }
+                indices = ensure(indices, indexCount + 3);
+                indices[indexCount] = readIndex(positionCount / 3);
+                indices[indexCount + 1] = -1;
+                indices[indexCount + 2] = -1;
+                if (pos < end && line[pos] == '/') {
+                    pos++;
+                    if (pos < end && line[pos] != '/' && !isSpace(line[pos])) {
+                        indices[indexCount + 1] = readIndex(texCoordCount / 2);
+                    }
+                    if (pos < end && line[pos] == '/') {
+                        pos++;
+                        if (pos < end && !isSpace(line[pos])) {
+                            indices[indexCount + 2] = readIndex(normalCount / 3);
+                        }
+                    }
+                }
+                skipToken();
+                indexCount += 3;
+                corners++;
+            }
+            if (corners > 0) {
+                faceSizes = ensure(faceSizes, faceCount + 1);
+                faceSizes[faceCount++] = corners;
+            }
+        }
+
+        /**
+         * Read a 1-based or negative relative index and resolve it against the element count.
+         *
+         * @throws IOException If the index does not refer to an element defined so far
+         */
+        private int readIndex(int elementCount) throws IOException {
+            boolean negative = false;
+            if (pos < end && line[pos] == '-') {
+                negative = true;
+                pos++;
+            }
+            int value = 0;
+            int start = pos;
+            while (pos < end && line[pos] >= '0' && line[pos] <= '9') {
+                value = value * 10 + (line[pos] - '0');
+                pos++;
+            }
+            if (pos == start) {
+                throw new NumberFormatException("Invalid face index: " + tokenAt(start));
+            }
+            int resolved = negative ? elementCount - value : value - 1;
+            if (resolved < 0 || resolved >= elementCount) {
+                throw new IOException("Face index " + tokenAt(start - (negative ? 1 : 0))
+                        + " does not refer to one of the " + elementCount + " elements defined before it");
+            }
+            return resolved;
+        }
+
+        private void skipSpaces() {
+            while (pos < end && isSpace(line[pos])) {
+                pos++;
+            }
+        }
+
+        private void skipToken() {
+            while (pos < end && !isSpace(line[pos])) {
+                pos++;
+            }
         }
-    }
 
-    private static void parseNormal(String[] parts, JsonArray normals) {
-        for (int i = 1; i < 4 && i < parts.length; i++) {
-            normals.add(Float.parseFloat(parts[i]));
+        private String tokenAt(int start) {
+            int tokenEnd = start;
+            while (tokenEnd < end && !isSpace(line[tokenEnd])) {
+                tokenEnd++;
+            }
+            return new String(line, start, tokenEnd - start, StandardCharsets.ISO_8859_1);
+        }
+
+        ObjMesh toMesh() {
+            return new ObjMesh(
+                    Arrays.copyOf(positions, positionCount),
+                    Arrays.copyOf(texCoords, texCoordCount),
+                    Arrays.copyOf(normals, normalCount),
+                    Arrays.copyOf(indices, indexCount),
+                    Arrays.copyOf(faceSizes, faceCount));
         }
     }
 
-    private static void parseFace(String[] parts, JsonArray faces) {
-        JsonArray face = new JsonArray();
-        for (int i = 1; i < parts.length; i++) {
-            face.add(parts[i]);
+    /**
+     * Parse a decimal float from ASCII bytes.
+     * Decimals whose digits fit exactly into a float mantissa (at most 2^24) and whose power of ten
+     * is at most 10 either way take a fast path: both operands are exact floats, so one float
+     * multiplication or division rounds correctly (Clinger's fast path).
+     * Anything else falls back to {@link Float#parseFloat(String)}.
+     */
+    static float parseFloat(byte[] s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s[i] == '-' || s[i] == '+')) {
+            negative = s[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        while (i < end && s[i] >= '0' && s[i] <= '9') {
+            anyDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (s[i] - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+            }
+            i++;
         }
-        faces.add(face);
+        if (i < end && s[i] == '.') {
+            i++;
+            while (i < end && s[i] >= '0' && s[i] <= '9') {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                i++;
+            }
+        }
+        if (anyDigit && i < end && (s[i] == 'e' || s[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s[i] == '-' || s[i] == '+')) {
+                negativeExponent = s[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            int exponentStart = i;
+            while (i < end && s[i] >= '0' && s[i] <= '9' && explicit < 10000) {
+                explicit = explicit * 10 + (s[i] - '0');
+                i++;
+            }
+            if (i == exponentStart) {
+                return slowParseFloat(s, start, end);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (!anyDigit || i != end || mantissa > MAX_EXACT_MANTISSA
+                || exponent <= -POWERS_OF_TEN.length || exponent >= POWERS_OF_TEN.length) {
+            return slowParseFloat(s, start, end);
+        }
+        float value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static float slowParseFloat(byte[] s, int start, int end) {
+        return Float.parseFloat(new String(s, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    private static float[] ensure(float[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, size));
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, size));
     }
 }
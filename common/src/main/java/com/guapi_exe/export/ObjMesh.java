@@ -0,0 +1,86 @@
+package com.guapi_exe.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A parsed OBJ mesh held in primitive arrays.
+ * Positions and normals have a stride of 3, texture coordinates a stride of 2.
+ * Every face corner is a (position, tex coord, normal) triple of 0-based indices in
+ * {@link #getIndices()}, with -1 for a component the corner does not reference;
+ * {@link #getFaceSizes()} holds the number of corners of each face in order.
+ */
+public class ObjMesh {
+    private final float[] positions;
+    private final float[] texCoords;
+    private final float[] normals;
+    private final int[] indices;
+    private final int[] faceSizes;
+
+    public ObjMesh(float[] positions, float[] texCoords, float[] normals, int[] indices, int[] faceSizes) {
+        this.positions = positions;
+        this.texCoords = texCoords;
+        this.normals = normals;
+        this.indices = indices;
+        this.faceSizes = faceSizes;
+    }
+
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public float[] getTexCoords() {
+        return texCoords;
+    }
+
+    public float[] getNormals() {
+        return normals;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public int[] getFaceSizes() {
+        return faceSizes;
+    }
+
+    public int getFaceCount() {
+        return faceSizes.length;
+    }
+
+    public int getCornerCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Write the mesh as a compact JSON object without building an intermediate tree.
+     */
+    public void writeJson(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("loader").value("forge:obj");
+        writeArray(out.name("vertices"), positions);
+        writeArray(out.name("tex_coords"), texCoords);
+        writeArray(out.name("normals"), normals);
+        writeArray(out.name("indices"), indices);
+        writeArray(out.name("face_sizes"), faceSizes);
+        out.endObject();
+    }
+
+    private static void writeArray(JsonWriter out, float[] values) throws IOException {
+        out.beginArray();
+        for (float value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static void writeArray(JsonWriter out, int[] values) throws IOException {
+        out.beginArray();
+        for (int value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,225 @@
+package com.guapi_exe.export;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * An indexed triangle mesh laid out for direct upload to GPU buffers.
+ * Faces of an {@link ObjMesh} are fan-triangulated and every distinct
+ * (position, tex coord, normal) corner becomes one vertex.
+ * <p>
+ * The binary file is little-endian: float32 positions (xyz), then float32 UVs (uv) and
+ * float32 normals (xyz) if the mesh has any, then uint16 or uint32 triangle indices.
+ * Every section starts on a 4-byte boundary and the file length is padded to a multiple of 4.
+ * The byte offsets are described by the JSON header written with {@link #writeHeader}.
+ */
+public class PackedMesh {
+    private final float[] positions;
+    private final float[] texCoords;
+    private final float[] normals;
+    private final int[] indices;
+    private final int vertexCount;
+
+    private PackedMesh(float[] positions, float[] texCoords, float[] normals, int[] indices, int vertexCount) {
+        this.positions = positions;
+        this.texCoords = texCoords;
+        this.normals = normals;
+        this.indices = indices;
+        this.vertexCount = vertexCount;
+    }
+
+    /**
+     * Triangulate and deduplicate the corners of a parsed OBJ mesh.
+     */
+    public static PackedMesh of(ObjMesh mesh) {
+        int[] corners = mesh.getIndices();
+        int cornerCount = mesh.getCornerCount();
+        boolean hasTexCoords = false;
+        boolean hasNormals = false;
+        for (int c = 0; c < cornerCount; c++) {
+            hasTexCoords |= corners[c * 3 + 1] >= 0;
+            hasNormals |= corners[c * 3 + 2] >= 0;
+        }
+
+        // Open-addressed table from corner triple to vertex id; slots hold id + 1
+        int tableSize = Integer.highestOneBit(Math.max(16, cornerCount * 2 - 1)) << 1;
+        int[] table = new int[tableSize];
+        int[] vertexCorners = new int[cornerCount];
+        int[] cornerVertices = new int[cornerCount];
+        int vertexCount = 0;
+        for (int c = 0; c < cornerCount; c++) {
+            int v = corners[c * 3];
+            int vt = hasTexCoords ? corners[c * 3 + 1] : -1;
+            int vn = hasNormals ? corners[c * 3 + 2] : -1;
+            int slot = hash(v, vt, vn) & (tableSize - 1);
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    vertexCorners[vertexCount] = c;
+                    table[slot] = ++vertexCount;
+                    cornerVertices[c] = vertexCount - 1;
+                    break;
+                }
+                int other = vertexCorners[entry - 1];
+                if (corners[other * 3] == v
+                        && (!hasTexCoords || corners[other * 3 + 1] == vt)
+                        && (!hasNormals || corners[other * 3 + 2] == vn)) {
+                    cornerVertices[c] = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & (tableSize - 1);
+            }
+        }
+
+        float[] positions = new float[vertexCount * 3];
+        float[] texCoords = hasTexCoords ? new float[vertexCount * 2] : null;
+        float[] normals = hasNormals ? new float[vertexCount * 3] : null;
+        for (int i = 0; i < vertexCount; i++) {
+            int c = vertexCorners[i];
+            copy(mesh.getPositions(), corners[c * 3], 3, positions, i);
+            if (texCoords != null) {
+                copy(mesh.getTexCoords(), corners[c * 3 + 1], 2, texCoords, i);
+            }
+            if (normals != null) {
+                copy(mesh.getNormals(), corners[c * 3 + 2], 3, normals, i);
+            }
+        }
+
+        int triangleCount = 0;
+        for (int size : mesh.getFaceSizes()) {
+            triangleCount += Math.max(0, size - 2);
+        }
+        int[] indices = new int[triangleCount * 3];
+        int index = 0;
+        int first = 0;
+        for (int size : mesh.getFaceSizes()) {
+            for (int k = 1; k + 1 < size; k++) {
+                indices[index++] = cornerVertices[first];
+                indices[index++] = cornerVertices[first + k];
+                indices[index++] = cornerVertices[first + k + 1];
+            }
+            first += size;
+        }
+        return new PackedMesh(positions, texCoords, normals, indices, vertexCount);
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getIndexCount() {
+        return indices.length;
+    }
+
+    /**
+     * Whether indices fit in 16 bits.
+     */
+    public boolean usesShortIndices() {
+        return vertexCount <= 0x10000;
+    }
+
+    private int positionsOffset() {
+        return 0;
+    }
+
+    private int texCoordsOffset() {
+        return positionsOffset() + positions.length * Float.BYTES;
+    }
+
+    private int normalsOffset() {
+        return texCoordsOffset() + (texCoords != null ? texCoords.length * Float.BYTES : 0);
+    }
+
+    private int indicesOffset() {
+        return normalsOffset() + (normals != null ? normals.length * Float.BYTES : 0);
+    }
+
+    /**
+     * Total size of the binary file in bytes.
+     */
+    public int getByteLength() {
+        int end = indicesOffset() + indices.length * (usesShortIndices() ? Short.BYTES : Integer.BYTES);
+        return (end + 3) & ~3;
+    }
+
+    /**
+     * Write the binary buffer to a file.
+     */
+    public void write(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(getByteLength()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(positionsOffset());
+        buffer.asFloatBuffer().put(positions);
+        if (texCoords != null) {
+            buffer.position(texCoordsOffset());
+            buffer.asFloatBuffer().put(texCoords);
+        }
+        if (normals != null) {
+            buffer.position(normalsOffset());
+            buffer.asFloatBuffer().put(normals);
+        }
+        buffer.position(indicesOffset());
+        if (usesShortIndices()) {
+            for (int index : indices) {
+                buffer.putShort((short) index);
+            }
+        } else {
+            buffer.asIntBuffer().put(indices);
+        }
+        Files.write(file.toPath(), buffer.array());
+    }
+
+    /**
+     * Write the JSON header describing the binary file.
+     * @param uri Location of the binary file relative to the bundle
+     */
+    public void writeHeader(JsonWriter out, String uri) throws IOException {
+        out.beginObject();
+        out.name("loader").value("forge:obj");
+        out.name("format").value("binary");
+        out.name("uri").value(uri);
+        out.name("byte_length").value(getByteLength());
+        out.name("vertex_count").value(vertexCount);
+        out.name("attributes").beginObject();
+        writeSection(out, "position", positionsOffset(), 3);
+        if (texCoords != null) {
+            writeSection(out, "uv", texCoordsOffset(), 2);
+        }
+        if (normals != null) {
+            writeSection(out, "normal", normalsOffset(), 3);
+        }
+        out.endObject();
+        out.name("indices").beginObject();
+        out.name("offset").value(indicesOffset());
+        out.name("count").value(indices.length);
+        out.name("type").value(usesShortIndices() ? "uint16" : "uint32");
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void writeSection(JsonWriter out, String name, int offset, int components) throws IOException {
+        out.name(name).beginObject();
+        out.name("offset").value(offset);
+        out.name("components").value(components);
+        out.name("type").value("float32");
+        out.endObject();
+    }
+
+    private static void copy(float[] source, int element, int stride, float[] target, int vertex) {
+        // Unreferenced or out-of-range components stay zero
+        if (element >= 0 && (element + 1) * stride <= source.length) {
+            System.arraycopy(source, element * stride, target, vertex * stride, stride);
+        }
+    }
+
+    private static int hash(int v, int vt, int vn) {
+        int h = v * 0x9E3779B1;
+        h = (h ^ vt) * 0x85EBCA77;
+        h = (h ^ vn) * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+}
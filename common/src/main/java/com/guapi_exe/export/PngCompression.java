@@ -0,0 +1,40 @@
+package com.guapi_exe.export;
+
+import com.guapi_exe.util.PngEncoder;
+
+/**
+ * Trade-off between PNG encoding speed and file size for atlases and icons.
+ */
+public enum PngCompression {
+    /** Fastest deflate level and the cheap up filter; larger files */
+    FAST(new PngEncoder(1, PngEncoder.Filter.UP, true)),
+
+    /** Default deflate level with the filter picked per row */
+    BALANCED(new PngEncoder(6, PngEncoder.Filter.ADAPTIVE, true)),
+
+    /** Strongest deflate level in one continuous stream; slowest, smallest files */
+    SMALLEST(new PngEncoder(9, PngEncoder.Filter.ADAPTIVE, false));
+
+    private final PngEncoder encoder;
+
+    PngCompression(PngEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    public PngEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Look up a preset by its case-insensitive name.
+     * @return The matching preset, or null if none matches
+     */
+    public static PngCompression byName(String name) {
+        for (PngCompression compression : values()) {
+            if (compression.name().equalsIgnoreCase(name)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,254 @@
+package com.guapi_exe.export;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.guapi_exe.util.PixelBuffer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frame layout of an animated texture, read from its .png.mcmeta the way the game reads it:
+ * frames are squares as wide as the narrower image side unless a frame width or height is given,
+ * are numbered row by row, and play in the listed order (index order by default) for
+ * {@code frametime} ticks each unless a frame sets its own time.
+ * The frames kept in the atlas are regrouped into a near-square sheet, each distinct frame once.
+ */
+public final class TextureAnimation {
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int frameWidth;
+    private final int frameHeight;
+    private final int columns;
+    // Source frame index of each sheet slot
+    private final int[] sheetFrames;
+    // Sheet slot and time in ticks of each played frame
+    private final int[] sequence;
+    private final int[] times;
+    private final boolean interpolate;
+
+    private TextureAnimation(int sourceWidth, int sourceHeight, int frameWidth, int frameHeight,
+                             int[] sheetFrames, int[] sequence, int[] times, boolean interpolate) {
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.columns = (int) Math.ceil(Math.sqrt(sheetFrames.length));
+        this.sheetFrames = sheetFrames;
+        this.sequence = sequence;
+        this.times = times;
+        this.interpolate = interpolate;
+    }
+
+    /**
+     * Read the animation of an image from its mcmeta.
+     *
+     * @param imageWidth  Width of the image the mcmeta belongs to
+     * @param imageHeight Height of the image the mcmeta belongs to
+     * @param mode        Which frames to keep
+     * @return The layout, or null if the mcmeta has no animation or the mode keeps the whole strip
+     * @throws IOException If the mcmeta is malformed, has a frame time or index the game rejects,
+     *                     or the image is not made of whole frames
+     */
+    public static TextureAnimation read(Reader mcmeta, int imageWidth, int imageHeight, AnimationMode mode)
+            throws IOException {
+        if (mode == AnimationMode.STRIP) {
+            return null;
+        }
+        JsonObject animation;
+        try {
+            JsonObject root = JsonParser.parseReader(mcmeta).getAsJsonObject();
+            if (!root.has("animation")) {
+                return null;
+            }
+            animation = root.getAsJsonObject("animation");
+        } catch (JsonParseException | IllegalStateException | ClassCastException e) {
+            throw new IOException("Malformed mcmeta: " + e.getMessage(), e);
+        }
+
+        int frameWidth = getInt(animation, "width", -1);
+        int frameHeight = getInt(animation, "height", -1);
+        if (frameWidth == -1 && frameHeight == -1) {
+            frameWidth = frameHeight = Math.min(imageWidth, imageHeight);
+        } else if (frameWidth == -1) {
+            frameWidth = imageWidth;
+        } else if (frameHeight == -1) {
+            frameHeight = imageHeight;
+        }
+        if (frameWidth <= 0 || frameHeight <= 0 || imageWidth % frameWidth != 0 || imageHeight % frameHeight != 0) {
+            throw new IOException("Image size " + imageWidth + "x" + imageHeight
+                    + " is not a multiple of the frame size " + frameWidth + "x" + frameHeight);
+        }
+        int frameCount = (imageWidth / frameWidth) * (imageHeight / frameHeight);
+        // The game rejects the whole mcmeta for a time or index it cannot play
+        int frameTime = getInt(animation, "frametime", 1);
+        if (frameTime <= 0) {
+            throw new IOException("Invalid frame time " + frameTime);
+        }
+
+        // Played frames as {source index, time}; frames past the end are dropped like the game does
+        List<int[]> played = new ArrayList<>();
+        if (animation.has("frames")) {
+            try {
+                JsonArray frames = animation.getAsJsonArray("frames");
+                for (JsonElement frame : frames) {
+                    int index;
+                    int time = frameTime;
+                    if (frame.isJsonObject()) {
+                        index = frame.getAsJsonObject().get("index").getAsInt();
+                        time = getInt(frame.getAsJsonObject(), "time", frameTime);
+                    } else {
+                        index = frame.getAsInt();
+                    }
+                    if (index < 0) {
+                        throw new IOException("Invalid frame index " + index);
+                    }
+                    if (time <= 0) {
+                        throw new IOException("Invalid frame time " + time);
+                    }
+                    if (index < frameCount) {
+                        played.add(new int[]{index, time});
+                    }
+                }
+            } catch (IllegalStateException | ClassCastException | NullPointerException | NumberFormatException e) {
+                throw new IOException("Malformed animation frames: " + e.getMessage(), e);
+            }
+        }
+        if (played.isEmpty()) {
+            for (int index = 0; index < frameCount; index++) {
+                played.add(new int[]{index, frameTime});
+            }
+        }
+        if (mode == AnimationMode.FIRST_FRAME) {
+            played = played.subList(0, 1);
+        }
+
+        Map<Integer, Integer> slots = new LinkedHashMap<>();
+        int[] sequence = new int[played.size()];
+        int[] times = new int[played.size()];
+        for (int i = 0; i < played.size(); i++) {
+            int index = played.get(i)[0];
+            Integer slot = slots.get(index);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(index, slot);
+            }
+            sequence[i] = slot;
+            times[i] = played.get(i)[1];
+        }
+        int[] sheetFrames = slots.keySet().stream().mapToInt(Integer::intValue).toArray();
+
+        boolean interpolate = animation.has("interpolate") && animation.get("interpolate").getAsBoolean();
+        return new TextureAnimation(imageWidth, imageHeight, frameWidth, frameHeight, sheetFrames, sequence, times,
+                interpolate && sequence.length > 1);
+    }
+
+    private static int getInt(JsonObject object, String name, int fallback) throws IOException {
+        try {
+            return object.has(name) ? object.get(name).getAsInt() : fallback;
+        } catch (IllegalStateException | ClassCastException | NumberFormatException e) {
+            throw new IOException("Malformed " + name + " in mcmeta", e);
+        }
+    }
+
+    /**
+     * Width of the frame sheet.
+     */
+    public int getWidth() {
+        return columns * frameWidth;
+    }
+
+    /**
+     * Height of the frame sheet.
+     */
+    public int getHeight() {
+        return (sheetFrames.length + columns - 1) / columns * frameHeight;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Number of frames played, including repeats. A single frame needs no timing.
+     */
+    public int getFrameCount() {
+        return sequence.length;
+    }
+
+    /**
+     * Left edge of a played frame within the sheet.
+     */
+    public int getFrameX(int frame) {
+        return sequence[frame] % columns * frameWidth;
+    }
+
+    /**
+     * Top edge of a played frame within the sheet.
+     */
+    public int getFrameY(int frame) {
+        return sequence[frame] / columns * frameHeight;
+    }
+
+    /**
+     * Ticks a played frame is shown.
+     */
+    public int getFrameTime(int frame) {
+        return times[frame];
+    }
+
+    /**
+     * Whether the game blends each frame into the next.
+     */
+    public boolean isInterpolated() {
+        return interpolate;
+    }
+
+    /**
+     * Copy the frame sheet from the decoded source image into a target buffer with its top-left
+     * corner at (x, y), one row-wise copy per frame.
+     *
+     * @throws IOException If the image is not the size the layout was read for
+     */
+    public void compose(PixelBuffer source, PixelBuffer target, int x, int y) throws IOException {
+        if (source.getWidth() != sourceWidth || source.getHeight() != sourceHeight) {
+            throw new IOException("Decoded size " + source.getWidth() + "x" + source.getHeight()
+                    + " does not match header size " + sourceWidth + "x" + sourceHeight);
+        }
+        int sourceColumns = sourceWidth / frameWidth;
+        for (int slot = 0; slot < sheetFrames.length; slot++) {
+            int frame = sheetFrames[slot];
+            target.put(x + slot % columns * frameWidth, y + slot / columns * frameHeight, source,
+                    frame % sourceColumns * frameWidth, frame / sourceColumns * frameHeight, frameWidth, frameHeight);
+        }
+    }
+
+    /**
+     * Feed the layout into a digest, so texture hashes change with the mcmeta and the mode.
+     */
+    public void hash(MessageDigest digest) {
+        ByteBuffer buffer = ByteBuffer.allocate((6 + sheetFrames.length + sequence.length * 2) * Integer.BYTES);
+        buffer.putInt(sourceWidth).putInt(sourceHeight).putInt(frameWidth).putInt(frameHeight);
+        buffer.putInt(sheetFrames.length).putInt(interpolate ? 1 : 0);
+        for (int frame : sheetFrames) {
+            buffer.putInt(frame);
+        }
+        for (int i = 0; i < sequence.length; i++) {
+            buffer.putInt(sequence[i]).putInt(times[i]);
+        }
+        digest.update(buffer.flip());
+    }
+}
@@ -1,32 +1,158 @@
 package com.guapi_exe.export;
 
-import java.awt.image.BufferedImage;
+import com.guapi_exe.util.Hashing;
+import com.guapi_exe.util.PixelBuffer;
+import net.minecraft.server.packs.resources.IoSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
 
 /**
- * Represents a texture entry with a key identifier and image data.
+ * Represents a texture entry with a key identifier, its size and a way to get its pixels.
+ * Entries backed by encoded bytes or by a resource only know their size, read from the PNG header;
+ * pixels are decoded each time they are needed and not kept, so packing works on sizes alone
+ * and an atlas holds no more than one decoded texture besides its page.
+ * Entries of animated textures are as large as their {@link TextureAnimation} frame sheet.
  */
 public class TextureEntry {
     private final String key;
-    private final BufferedImage image;
+    private final int width;
+    private final int height;
+    private final String contentHash;
+    private final byte[] data;
+    private final IoSupplier<InputStream> source;
+    private final PixelBuffer pixels;
+    private final TextureAnimation animation;
+
+    /**
+     * Create an entry from pixels already in memory.
+     */
+    public TextureEntry(String key, PixelBuffer pixels) {
+        MessageDigest digest = Hashing.sha1();
+        pixels.hash(digest);
+        this.key = key;
+        this.width = pixels.getWidth();
+        this.height = pixels.getHeight();
+        this.contentHash = Hashing.toHex(digest.digest());
+        this.data = null;
+        this.source = null;
+        this.pixels = pixels;
+        this.animation = null;
+    }
 
-    public TextureEntry(String key, BufferedImage image) {
+    /**
+     * Create an entry from encoded image bytes, decoded when its pixels are needed.
+     *
+     * @throws IOException If the size cannot be read from the bytes
+     */
+    public TextureEntry(String key, byte[] data) throws IOException {
+        this(key, data, null);
+    }
+
+    /**
+     * Create an entry from encoded image bytes of an animated texture, stored as its frame sheet.
+     *
+     * @param animation Frame layout read for this image, or null to store the image as it is
+     * @throws IOException If the size cannot be read from the bytes
+     */
+    public TextureEntry(String key, byte[] data, TextureAnimation animation) throws IOException {
+        int[] size = PixelBuffer.readSize(data);
+        MessageDigest digest = Hashing.sha1();
+        digest.update(data);
+        if (animation != null) {
+            animation.hash(digest);
+            // The layout was read for the header size; compose() rejects any other size
+            size = new int[]{animation.getWidth(), animation.getHeight()};
+        }
         this.key = key;
-        this.image = image;
+        this.width = size[0];
+        this.height = size[1];
+        this.contentHash = Hashing.toHex(digest.digest());
+        this.data = data;
+        this.source = null;
+        this.pixels = null;
+        this.animation = animation;
+    }
+
+    /**
+     * Create an entry that reads its encoded bytes from a source whenever its pixels are needed.
+     * The source is read once here for the hash and size; none of its bytes are kept.
+     *
+     * @throws IOException If the source cannot be read or the size cannot be read from it
+     */
+    public TextureEntry(String key, IoSupplier<InputStream> source) throws IOException {
+        byte[] encoded = read(source);
+        int[] size = PixelBuffer.readSize(encoded);
+        this.key = key;
+        this.width = size[0];
+        this.height = size[1];
+        this.contentHash = Hashing.sha1Hex(encoded);
+        this.data = null;
+        this.source = source;
+        this.pixels = null;
+        this.animation = null;
     }
 
     public String getKey() {
         return key;
     }
 
-    public BufferedImage getImage() {
-        return image;
+    /**
+     * Copy the RGBA pixels into a target buffer with their top-left corner at (x, y).
+     * Unless the entry was created from pixels, they are decoded anew on every call and copied
+     * straight from the decoder's memory, which is released before this returns.
+     *
+     * @throws IOException If the texture cannot be read or decoded,
+     *                     or does not decode to the size from its header
+     */
+    public void drawInto(PixelBuffer target, int x, int y) throws IOException {
+        if (pixels != null) {
+            target.put(x, y, pixels);
+            return;
+        }
+        try (PixelBuffer decoded = PixelBuffer.decode(data != null ? data : read(source))) {
+            if (animation != null) {
+                animation.compose(decoded, target, x, y);
+                return;
+            }
+            if (decoded.getWidth() != width || decoded.getHeight() != height) {
+                throw new IOException("Decoded size " + decoded.getWidth() + "x" + decoded.getHeight()
+                        + " does not match header size " + width + "x" + height);
+            }
+            target.put(x, y, decoded);
+        }
+    }
+
+    /**
+     * Hash identifying the texture content. Entries with encoded bytes hash those bytes
+     * (and their frame layout), which needs no decode; identical bytes always mean identical pixels.
+     * Pixel-backed entries hash their size and RGBA pixels.
+     *
+     * @return Hex digest
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Frame layout of an animated texture, or null if the image is stored as it is.
+     */
+    public TextureAnimation getAnimation() {
+        return animation;
     }
 
     public int getWidth() {
-        return image.getWidth();
+        return width;
     }
 
     public int getHeight() {
-        return image.getHeight();
+        return height;
+    }
+
+    private static byte[] read(IoSupplier<InputStream> source) throws IOException {
+        try (InputStream in = source.get()) {
+            return in.readAllBytes();
+        }
     }
 }
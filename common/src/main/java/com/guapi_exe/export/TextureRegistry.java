@@ -0,0 +1,87 @@
+package com.guapi_exe.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key-indexed collection of textures for one atlas.
+ * Key lookups are O(1), so callers can skip a texture before its resource is even opened.
+ * Textures whose content hash matches an already registered texture are recorded as aliases
+ * of it instead, so identical images under different keys share one atlas region.
+ */
+public class TextureRegistry {
+    private final Map<String, TextureEntry> textures = new LinkedHashMap<>();
+    private final Map<String, String> keysByHash = new HashMap<>();
+    private final Map<String, String> aliases = new LinkedHashMap<>();
+
+    /**
+     * Whether a texture or alias with this key is already registered.
+     */
+    public boolean contains(String key) {
+        return textures.containsKey(key) || aliases.containsKey(key);
+    }
+
+    /**
+     * Register a texture unless its key is already taken.
+     * If its content matches a registered texture, it becomes an alias of that texture.
+     *
+     * @return true if the key was new
+     */
+    public boolean add(TextureEntry entry) {
+        String key = entry.getKey();
+        if (contains(key)) return false;
+
+        String existing = keysByHash.putIfAbsent(entry.getContentHash(), key);
+        if (existing != null) {
+            aliases.put(key, existing);
+        } else {
+            textures.put(key, entry);
+        }
+        return true;
+    }
+
+    /**
+     * Unique textures, in registration order.
+     */
+    public List<TextureEntry> getTextures() {
+        return new ArrayList<>(textures.values());
+    }
+
+    /**
+     * Duplicate texture keys mapped to the key of the texture holding the same content.
+     */
+    public Map<String, String> getAliases() {
+        return Collections.unmodifiableMap(aliases);
+    }
+
+    /**
+     * Number of registered keys, including aliases.
+     */
+    public int size() {
+        return textures.size() + aliases.size();
+    }
+
+    public boolean isEmpty() {
+        return textures.isEmpty() && aliases.isEmpty();
+    }
+
+    /**
+     * Combined hash of every key, its content and the aliases, identifying the atlas input.
+     */
+    public String getContentHash() {
+        List<Object> parts = new ArrayList<>(textures.size() * 2 + aliases.size() * 2);
+        for (TextureEntry entry : textures.values()) {
+            parts.add(entry.getKey());
+            parts.add(entry.getContentHash());
+        }
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            parts.add(alias.getKey());
+            parts.add(alias.getValue());
+        }
+        return ExportManifest.combine(parts.toArray());
+    }
+}
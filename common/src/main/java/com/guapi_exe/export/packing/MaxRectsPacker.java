@@ -0,0 +1,214 @@
+package com.guapi_exe.export.packing;
+
+import com.guapi_exe.export.PackedTexture;
+import com.guapi_exe.export.TextureEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MaxRects packer.
+ * Keeps the list of maximal free rectangles left in the bin and places each texture
+ * in the free rectangle chosen by the configured {@link Heuristic}.
+ * Gives the tightest atlases for mixed texture sizes.
+ */
+public class MaxRectsPacker implements PackingStrategy {
+
+    /**
+     * Rules for choosing the free rectangle a texture goes into.
+     */
+    public enum Heuristic {
+        /** Minimize the shorter leftover side of the free rectangle */
+        BEST_SHORT_SIDE_FIT("bssf"),
+
+        /** Minimize the longer leftover side of the free rectangle */
+        BEST_LONG_SIDE_FIT("blsf"),
+
+        /** Pick the smallest free rectangle the texture fits in */
+        BEST_AREA_FIT("baf"),
+
+        /** Tetris-style placement: lowest, then leftmost position */
+        BOTTOM_LEFT("bl");
+
+        private final String shortName;
+
+        Heuristic(String shortName) {
+            this.shortName = shortName;
+        }
+
+        public String getShortName() {
+            return shortName;
+        }
+
+        /**
+         * Look up a heuristic by its short name (e.g. "bssf") or full name.
+         * @return The matching heuristic, or null if none matches
+         */
+        public static Heuristic byName(String name) {
+            for (Heuristic heuristic : values()) {
+                if (heuristic.shortName.equalsIgnoreCase(name) || heuristic.name().equalsIgnoreCase(name)) {
+                    return heuristic;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Heuristic heuristic;
+
+    public MaxRectsPacker(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public String getName() {
+        return "maxrects-" + heuristic.getShortName();
+    }
+
+    @Override
+    public PackResult pack(List<TextureEntry> textures, int binWidth, int binHeight) {
+        // Large textures first: they have the fewest options left once the bin fills up
+        List<TextureEntry> sorted = new ArrayList<>(textures);
+        sorted.sort((a, b) -> {
+            int cmp = Integer.compare(Math.max(b.getWidth(), b.getHeight()), Math.max(a.getWidth(), a.getHeight()));
+            return cmp != 0 ? cmp : Integer.compare(b.getWidth() * b.getHeight(), a.getWidth() * a.getHeight());
+        });
+
+        List<Rect> freeRects = new ArrayList<>();
+        freeRects.add(new Rect(0, 0, binWidth, binHeight));
+
+        List<PackedTexture> packed = new ArrayList<>();
+        List<TextureEntry> rejected = new ArrayList<>();
+
+        for (TextureEntry entry : sorted) {
+            int w = entry.getWidth();
+            int h = entry.getHeight();
+
+            Rect best = null;
+            long bestScore1 = Long.MAX_VALUE;
+            long bestScore2 = Long.MAX_VALUE;
+            for (Rect free : freeRects) {
+                if (w > free.w || h > free.h) continue;
+
+                long score1;
+                long score2;
+                int leftoverX = free.w - w;
+                int leftoverY = free.h - h;
+                switch (heuristic) {
+                    case BEST_LONG_SIDE_FIT:
+                        score1 = Math.max(leftoverX, leftoverY);
+                        score2 = Math.min(leftoverX, leftoverY);
+                        break;
+                    case BEST_AREA_FIT:
+                        score1 = (long) free.w * free.h - (long) w * h;
+                        score2 = Math.min(leftoverX, leftoverY);
+                        break;
+                    case BOTTOM_LEFT:
+                        score1 = (long) free.y + h;
+                        score2 = free.x;
+                        break;
+                    case BEST_SHORT_SIDE_FIT:
+                    default:
+                        score1 = Math.min(leftoverX, leftoverY);
+                        score2 = Math.max(leftoverX, leftoverY);
+                        break;
+                }
+
+                if (score1 < bestScore1 || (score1 == bestScore1 && score2 < bestScore2)) {
+                    best = free;
+                    bestScore1 = score1;
+                    bestScore2 = score2;
+                }
+            }
+
+            if (best == null) {
+                rejected.add(entry);
+                continue;
+            }
+
+            Rect used = new Rect(best.x, best.y, w, h);
+            packed.add(new PackedTexture(entry, used.x, used.y));
+            splitFreeRects(freeRects, used);
+        }
+
+        return new PackResult(packed, rejected);
+    }
+
+    /**
+     * Carve the used rectangle out of every free rectangle it overlaps and drop
+     * free rectangles that end up contained in another one.
+     */
+    private static void splitFreeRects(List<Rect> freeRects, Rect used) {
+        List<Rect> created = new ArrayList<>();
+        for (int i = freeRects.size() - 1; i >= 0; i--) {
+            Rect free = freeRects.get(i);
+            if (!free.intersects(used)) continue;
+
+            freeRects.remove(i);
+            if (used.x > free.x) {
+                created.add(new Rect(free.x, free.y, used.x - free.x, free.h));
+            }
+            if (used.right() < free.right()) {
+                created.add(new Rect(used.right(), free.y, free.right() - used.right(), free.h));
+            }
+            if (used.y > free.y) {
+                created.add(new Rect(free.x, free.y, free.w, used.y - free.y));
+            }
+            if (used.bottom() < free.bottom()) {
+                created.add(new Rect(free.x, used.bottom(), free.w, free.bottom() - used.bottom()));
+            }
+        }
+
+        // Surviving old rectangles are already maximal among themselves,
+        // so only the newly created ones need to be checked
+        for (int i = 0; i < created.size(); i++) {
+            Rect candidate = created.get(i);
+            boolean contained = false;
+            for (int j = 0; j < created.size() && !contained; j++) {
+                if (i != j && created.get(j).contains(candidate)
+                        && (!candidate.contains(created.get(j)) || j < i)) {
+                    contained = true;
+                }
+            }
+            for (int j = 0; j < freeRects.size() && !contained; j++) {
+                if (freeRects.get(j).contains(candidate)) {
+                    contained = true;
+                }
+            }
+            if (contained) {
+                created.remove(i--);
+            }
+        }
+        freeRects.addAll(created);
+    }
+
+    private static final class Rect {
+        final int x;
+        final int y;
+        final int w;
+        final int h;
+
+        Rect(int x, int y, int w, int h) {
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+        }
+
+        int right() {
+            return x + w;
+        }
+
+        int bottom() {
+            return y + h;
+        }
+
+        boolean intersects(Rect other) {
+            return x < other.right() && other.x < right() && y < other.bottom() && other.y < bottom();
+        }
+
+        boolean contains(Rect other) {
+            return other.x >= x && other.y >= y && other.right() <= right() && other.bottom() <= bottom();
+        }
+    }
+}
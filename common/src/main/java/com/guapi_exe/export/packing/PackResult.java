@@ -0,0 +1,77 @@
+package com.guapi_exe.export.packing;
+
+import com.guapi_exe.export.PackedTexture;
+import com.guapi_exe.export.TextureEntry;
+
+import java.util.List;
+
+/**
+ * Result of packing textures into a single bin.
+ */
+public class PackResult {
+    private final List<PackedTexture> placed;
+    private final List<TextureEntry> rejected;
+    private final int width;
+    private final int height;
+
+    public PackResult(List<PackedTexture> placed, List<TextureEntry> rejected) {
+        this.placed = placed;
+        this.rejected = rejected;
+
+        int maxX = 0;
+        int maxY = 0;
+        for (PackedTexture p : placed) {
+            maxX = Math.max(maxX, p.getX() + p.getEntry().getWidth());
+            maxY = Math.max(maxY, p.getY() + p.getEntry().getHeight());
+        }
+        this.width = maxX;
+        this.height = maxY;
+    }
+
+    /**
+     * Textures that were placed, with their positions.
+     */
+    public List<PackedTexture> getPlaced() {
+        return placed;
+    }
+
+    /**
+     * Textures that did not fit into the bin.
+     */
+    public List<TextureEntry> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Width of the bounding box of all placed textures.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Height of the bounding box of all placed textures.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Total pixel area covered by placed textures.
+     */
+    public long getUsedArea() {
+        long area = 0;
+        for (PackedTexture p : placed) {
+            area += (long) p.getEntry().getWidth() * p.getEntry().getHeight();
+        }
+        return area;
+    }
+
+    /**
+     * Fraction of an atlas of the given size covered by placed textures.
+     */
+    public double getEfficiency(int atlasWidth, int atlasHeight) {
+        long atlasArea = (long) atlasWidth * atlasHeight;
+        return atlasArea == 0 ? 0 : (double) getUsedArea() / atlasArea;
+    }
+}
@@ -0,0 +1,44 @@
+package com.guapi_exe.export.packing;
+
+/**
+ * Available atlas packing algorithms.
+ */
+public enum PackingAlgorithm {
+    /** Row-by-row shelf packing */
+    SHELF,
+
+    /** Maximal free rectangles packing */
+    MAXRECTS,
+
+    /** Bottom-left skyline packing */
+    SKYLINE;
+
+    /**
+     * Create a packer for this algorithm.
+     * @param heuristic Free rectangle choice rule, only used by MAXRECTS
+     */
+    public PackingStrategy create(MaxRectsPacker.Heuristic heuristic) {
+        switch (this) {
+            case SHELF:
+                return new ShelfPacker();
+            case SKYLINE:
+                return new SkylinePacker();
+            case MAXRECTS:
+            default:
+                return new MaxRectsPacker(heuristic);
+        }
+    }
+
+    /**
+     * Look up an algorithm by its case-insensitive name.
+     * @return The matching algorithm, or null if none matches
+     */
+    public static PackingAlgorithm byName(String name) {
+        for (PackingAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.guapi_exe.export.packing;
+
+import com.guapi_exe.export.TextureEntry;
+
+import java.util.List;
+
+/**
+ * Strategy for placing textures into a rectangular atlas bin.
+ */
+public interface PackingStrategy {
+
+    /**
+     * Short name used in logs.
+     */
+    String getName();
+
+    /**
+     * Pack textures into a bin of at most binWidth x binHeight pixels.
+     * Implementations may reorder the textures but must not modify the input list.
+     *
+     * @param textures  Textures to place
+     * @param binWidth  Maximum atlas width
+     * @param binHeight Maximum atlas height
+     * @return Placed textures plus any that did not fit
+     */
+    PackResult pack(List<TextureEntry> textures, int binWidth, int binHeight);
+}
@@ -0,0 +1,55 @@
+package com.guapi_exe.export.packing;
+
+import com.guapi_exe.export.PackedTexture;
+import com.guapi_exe.export.TextureEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple shelf packer: fills rows left to right and starts a new row when the current one is full.
+ * Textures are sorted by height so each row wastes as little vertical space as possible.
+ */
+public class ShelfPacker implements PackingStrategy {
+
+    @Override
+    public String getName() {
+        return "shelf";
+    }
+
+    @Override
+    public PackResult pack(List<TextureEntry> textures, int binWidth, int binHeight) {
+        List<TextureEntry> sorted = new ArrayList<>(textures);
+        sorted.sort((a, b) -> Integer.compare(b.getHeight(), a.getHeight()));
+
+        List<PackedTexture> packed = new ArrayList<>();
+        List<TextureEntry> rejected = new ArrayList<>();
+        int currentX = 0;
+        int currentY = 0;
+        int rowHeight = 0;
+
+        for (TextureEntry entry : sorted) {
+            if (entry.getWidth() > binWidth) {
+                rejected.add(entry);
+                continue;
+            }
+
+            if (currentX + entry.getWidth() > binWidth) {
+                currentX = 0;
+                currentY += rowHeight;
+                rowHeight = 0;
+            }
+
+            if (currentY + entry.getHeight() > binHeight) {
+                rejected.add(entry);
+                continue;
+            }
+
+            packed.add(new PackedTexture(entry, currentX, currentY));
+            currentX += entry.getWidth();
+            rowHeight = Math.max(rowHeight, entry.getHeight());
+        }
+
+        return new PackResult(packed, rejected);
+    }
+}
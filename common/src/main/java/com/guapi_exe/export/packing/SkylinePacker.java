@@ -0,0 +1,138 @@
+package com.guapi_exe.export.packing;
+
+import com.guapi_exe.export.PackedTexture;
+import com.guapi_exe.export.TextureEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bottom-left skyline packer.
+ * Tracks the top edge of the packed area as a list of horizontal segments and drops each
+ * texture where its bottom edge ends up lowest. Fast and good for many similarly sized textures.
+ */
+public class SkylinePacker implements PackingStrategy {
+
+    @Override
+    public String getName() {
+        return "skyline";
+    }
+
+    @Override
+    public PackResult pack(List<TextureEntry> textures, int binWidth, int binHeight) {
+        List<TextureEntry> sorted = new ArrayList<>(textures);
+        sorted.sort((a, b) -> {
+            int cmp = Integer.compare(b.getHeight(), a.getHeight());
+            return cmp != 0 ? cmp : Integer.compare(b.getWidth(), a.getWidth());
+        });
+
+        List<Segment> skyline = new ArrayList<>();
+        skyline.add(new Segment(0, 0, binWidth));
+
+        List<PackedTexture> packed = new ArrayList<>();
+        List<TextureEntry> rejected = new ArrayList<>();
+
+        for (TextureEntry entry : sorted) {
+            int w = entry.getWidth();
+            int h = entry.getHeight();
+
+            int bestIndex = -1;
+            int bestBottom = Integer.MAX_VALUE;
+            int bestWidth = Integer.MAX_VALUE;
+            int bestY = 0;
+            for (int i = 0; i < skyline.size(); i++) {
+                int y = fit(skyline, i, w, h, binWidth, binHeight);
+                if (y < 0) continue;
+
+                int bottom = y + h;
+                int segmentWidth = skyline.get(i).width;
+                if (bottom < bestBottom || (bottom == bestBottom && segmentWidth < bestWidth)) {
+                    bestIndex = i;
+                    bestBottom = bottom;
+                    bestWidth = segmentWidth;
+                    bestY = y;
+                }
+            }
+
+            if (bestIndex < 0) {
+                rejected.add(entry);
+                continue;
+            }
+
+            int x = skyline.get(bestIndex).x;
+            packed.add(new PackedTexture(entry, x, bestY));
+            place(skyline, bestIndex, x, bestY + h, w);
+        }
+
+        return new PackResult(packed, rejected);
+    }
+
+    /**
+     * Find the lowest y at which a w x h texture can sit with its left edge at segment i.
+     * @return The y position, or -1 if it does not fit
+     */
+    private static int fit(List<Segment> skyline, int index, int w, int h, int binWidth, int binHeight) {
+        int x = skyline.get(index).x;
+        if (x + w > binWidth) return -1;
+
+        int widthLeft = w;
+        int y = 0;
+        int i = index;
+        while (widthLeft > 0) {
+            Segment segment = skyline.get(i);
+            y = Math.max(y, segment.y);
+            if (y + h > binHeight) return -1;
+            widthLeft -= segment.width;
+            i++;
+        }
+        return y;
+    }
+
+    /**
+     * Raise the skyline under a newly placed texture.
+     */
+    private static void place(List<Segment> skyline, int index, int x, int top, int w) {
+        skyline.add(index, new Segment(x, top, w));
+
+        // Shrink or remove the segments now covered by the new one
+        int right = x + w;
+        int i = index + 1;
+        while (i < skyline.size()) {
+            Segment segment = skyline.get(i);
+            if (segment.x >= right) break;
+
+            int segmentRight = segment.x + segment.width;
+            if (segmentRight <= right) {
+                skyline.remove(i);
+            } else {
+                segment.width = segmentRight - right;
+                segment.x = right;
+                break;
+            }
+        }
+
+        // Merge neighbours at the same height
+        for (int j = 0; j < skyline.size() - 1; ) {
+            Segment a = skyline.get(j);
+            Segment b = skyline.get(j + 1);
+            if (a.y == b.y) {
+                a.width += b.width;
+                skyline.remove(j + 1);
+            } else {
+                j++;
+            }
+        }
+    }
+
+    private static final class Segment {
+        int x;
+        int y;
+        int width;
+
+        Segment(int x, int y, int width) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+        }
+    }
+}
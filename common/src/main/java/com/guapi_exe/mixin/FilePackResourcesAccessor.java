@@ -0,0 +1,17 @@
+package com.guapi_exe.mixin;
+
+import net.minecraft.server.packs.FilePackResources;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.io.File;
+
+/**
+ * Exposes the archive behind a {@link FilePackResources}, so it can be opened once for a batch of copies.
+ */
+@Mixin(FilePackResources.class)
+public interface FilePackResourcesAccessor {
+
+    @Accessor("file")
+    File getFile();
+}
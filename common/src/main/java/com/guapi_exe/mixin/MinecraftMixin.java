@@ -0,0 +1,25 @@
+package com.guapi_exe.mixin;
+
+import com.guapi_exe.ClientResourceExporter;
+import net.minecraft.client.Minecraft;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Refuses resource reloads (F3+T, pack changes) while an export is reading resources.
+ */
+@Mixin(Minecraft.class)
+public abstract class MinecraftMixin {
+
+    @Inject(method = "reloadResourcePacks()Ljava/util/concurrent/CompletableFuture;", at = @At("HEAD"),
+            cancellable = true)
+    private void resoureexporter$blockReloadDuringExport(CallbackInfoReturnable<CompletableFuture<Void>> cir) {
+        if (ClientResourceExporter.isReloadBlocked()) {
+            cir.setReturnValue(CompletableFuture.completedFuture(null));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.guapi_exe.mixin;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/**
+ * Exposes the native address of a {@link NativeImage}'s pixel buffer for bulk access.
+ */
+@Mixin(NativeImage.class)
+public interface NativeImageAccessor {
+
+    @Accessor("pixels")
+    long getPixels();
+}
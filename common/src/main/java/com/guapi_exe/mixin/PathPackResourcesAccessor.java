@@ -0,0 +1,17 @@
+package com.guapi_exe.mixin;
+
+import net.minecraft.server.packs.PathPackResources;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import java.nio.file.Path;
+
+/**
+ * Exposes the root directory of a {@link PathPackResources}, so its files can be copied directly.
+ */
+@Mixin(PathPackResources.class)
+public interface PathPackResourcesAccessor {
+
+    @Accessor("root")
+    Path getRoot();
+}
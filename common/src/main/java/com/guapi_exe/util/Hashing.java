@@ -0,0 +1,44 @@
+package com.guapi_exe.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hashing helpers shared by the texture registry and the export manifest.
+ */
+public final class Hashing {
+
+    private Hashing() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Create a new SHA-1 digest.
+     */
+    public static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SHA-1 hex digest of a byte array.
+     */
+    public static String sha1Hex(byte[] data) {
+        return toHex(sha1().digest(data));
+    }
+
+    /**
+     * Lowercase hex representation of a byte array.
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.guapi_exe.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon pool with one thread per core, shared by the image work split into bands of rows
+ * (PNG deflate, atlas downsampling). Created on first use.
+ * Tasks must not wait on other tasks of the pool.
+ */
+public final class ImageWorkers {
+
+    private ImageWorkers() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Run a task on the pool.
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        return Holder.POOL.submit(task);
+    }
+
+    /**
+     * Wait for one of a group of tasks. If it fails or the wait is interrupted,
+     * every task of the group is cancelled.
+     *
+     * @param group  All tasks of the group, cancelled on failure
+     * @param action What the tasks do, for the error message (e.g. "encoding PNG")
+     * @throws IOException If the task failed or the wait was interrupted
+     */
+    public static <T> T await(Future<T> future, List<? extends Future<?>> group, String action) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            group.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while " + action, e);
+        } catch (ExecutionException e) {
+            group.forEach(task -> task.cancel(true));
+            throw new IOException("Failed while " + action, e.getCause());
+        }
+    }
+
+    private static final class Holder {
+        private static final ExecutorService POOL;
+
+        static {
+            AtomicInteger threadIndex = new AtomicInteger();
+            POOL = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "Image Worker #" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
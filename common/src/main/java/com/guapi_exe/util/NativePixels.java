@@ -0,0 +1,195 @@
+package com.guapi_exe.util;
+
+import com.guapi_exe.mixin.NativeImageAccessor;
+import com.mojang.blaze3d.platform.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Bulk operations on the native pixel memory of RGBA {@link NativeImage}s.
+ * Pixels are moved a whole row at a time between native memory and a plain int array,
+ * in row-major order, instead of one bounds-checked getPixelRGBA/setPixelRGBA call per pixel.
+ * Pixel values are in the same packed ABGR form getPixelRGBA returns.
+ */
+public final class NativePixels {
+
+    private NativePixels() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * View the pixels of an image as an int buffer, row-major with one int per pixel.
+     * The buffer is only valid until the image is closed.
+     *
+     * @throws IllegalArgumentException If the image is not RGBA
+     * @throws IllegalStateException If the image has been closed
+     */
+    public static IntBuffer pixels(NativeImage image) {
+        return MemoryUtil.memIntBuffer(address(image), image.getWidth() * image.getHeight());
+    }
+
+    /**
+     * View the pixels of an image as RGBA bytes, row-major, as {@link PixelBuffer} stores them.
+     * The buffer is only valid until the image is closed.
+     *
+     * @throws IllegalArgumentException If the image is not RGBA
+     * @throws IllegalStateException If the image has been closed
+     */
+    public static ByteBuffer bytes(NativeImage image) {
+        return MemoryUtil.memByteBuffer(address(image), image.getWidth() * image.getHeight() * 4);
+    }
+
+    private static long address(NativeImage image) {
+        if (image.format() != NativeImage.Format.RGBA) {
+            throw new IllegalArgumentException("Only RGBA images are supported, got " + image.format());
+        }
+        long address = ((NativeImageAccessor) (Object) image).getPixels();
+        if (address == 0L) {
+            throw new IllegalStateException("Image is closed");
+        }
+        return address;
+    }
+
+    /**
+     * Copy a region of an image into a new image, turning the key color transparent.
+     * Parts of the region outside the source image are left transparent.
+     */
+    public static NativeImage cropKeyed(NativeImage source, int x, int y, int width, int height, int key) {
+        int copyWidth = Math.max(0, Math.min(width, source.getWidth() - x));
+        int copyHeight = Math.max(0, Math.min(height, source.getHeight() - y));
+        // Only zero the new image when part of it will not be copied over
+        NativeImage target = new NativeImage(width, height, copyWidth < width || copyHeight < height);
+        if (copyWidth > 0 && copyHeight > 0) {
+            copyKeyed(pixels(source), source.getWidth(), x, y, pixels(target), width, copyWidth, copyHeight, key);
+        }
+        return target;
+    }
+
+    /**
+     * Copy a rectangle between two pixel buffers row by row, turning the key color transparent.
+     *
+     * @param source      Source pixels
+     * @param sourceWidth Row length of the source
+     * @param x           Left edge of the rectangle in the source
+     * @param y           Top edge of the rectangle in the source
+     * @param target      Target pixels; the rectangle lands at its top-left corner
+     * @param targetWidth Row length of the target
+     */
+    public static void copyKeyed(IntBuffer source, int sourceWidth, int x, int y, IntBuffer target,
+                                 int targetWidth, int width, int height, int key) {
+        int[] row = new int[width];
+        for (int r = 0; r < height; r++) {
+            source.get((y + r) * sourceWidth + x, row, 0, width);
+            key(row, 0, width, key);
+            target.put(r * targetWidth, row, 0, width);
+        }
+    }
+
+    /**
+     * Resolve one icon from a frame into a new image of {@code size / factor} pixels.
+     * Coverage comes either from the key color or, when {@code matteX} is not negative, from a second
+     * copy of the icon rendered on white at column {@code matteX} while this copy was rendered on black:
+     * alpha is one minus the black/white difference, and the color on black is the premultiplied color.
+     * Each {@code factor x factor} block is then averaged in premultiplied space (a box filter).
+     *
+     * @param x      Left edge of the icon (on black, in matte mode) in the frame
+     * @param y      Top edge of the icon in the frame
+     * @param size   Width and height of the icon in the frame, a multiple of factor
+     * @param matteX Left edge of the copy rendered on white, or -1 to key by color
+     * @param factor Supersampling factor
+     * @param key    Background color to make transparent when not matting
+     */
+    public static NativeImage resolve(NativeImage frame, int x, int y, int size, int matteX, int factor, int key) {
+        int right = Math.max(x, matteX) + size;
+        if (x < 0 || y < 0 || right > frame.getWidth() || y + size > frame.getHeight()) {
+            throw new IllegalArgumentException("Icon region lies outside the frame");
+        }
+        int outSize = size / factor;
+        int samples = factor * factor;
+        IntBuffer source = pixels(frame);
+        int frameWidth = frame.getWidth();
+        NativeImage target = new NativeImage(outSize, outSize, false);
+        IntBuffer targetPixels = pixels(target);
+
+        int[] base = new int[size];
+        int[] white = matteX >= 0 ? new int[size] : null;
+        // Premultiplied red, green, blue and alpha sums per output pixel of the current row
+        int[] sums = new int[outSize * 4];
+        int[] row = new int[outSize];
+        for (int outY = 0; outY < outSize; outY++) {
+            Arrays.fill(sums, 0);
+            for (int sy = 0; sy < factor; sy++) {
+                int offset = (y + outY * factor + sy) * frameWidth;
+                source.get(offset + x, base, 0, size);
+                if (white != null) {
+                    source.get(offset + matteX, white, 0, size);
+                }
+                for (int sx = 0; sx < size; sx++) {
+                    int pixel = base[sx];
+                    int r = pixel & 0xFF;
+                    int g = (pixel >> 8) & 0xFF;
+                    int b = (pixel >> 16) & 0xFF;
+                    int a;
+                    if (white != null) {
+                        int onWhite = white[sx];
+                        int difference = ((onWhite & 0xFF) - r + ((onWhite >> 8) & 0xFF) - g
+                                + ((onWhite >> 16) & 0xFF) - b) / 3;
+                        a = Math.max(0, Math.min(255, 255 - difference));
+                        // Color on black is already premultiplied; keep it within the coverage
+                        r = Math.min(r, a);
+                        g = Math.min(g, a);
+                        b = Math.min(b, a);
+                    } else if (pixel == key) {
+                        continue;
+                    } else {
+                        a = pixel >>> 24;
+                        r = r * a / 255;
+                        g = g * a / 255;
+                        b = b * a / 255;
+                    }
+                    int sum = (sx / factor) * 4;
+                    sums[sum] += r;
+                    sums[sum + 1] += g;
+                    sums[sum + 2] += b;
+                    sums[sum + 3] += a;
+                }
+            }
+            for (int outX = 0; outX < outSize; outX++) {
+                int sum = outX * 4;
+                int alphaSum = sums[sum + 3];
+                if (alphaSum == 0) {
+                    row[outX] = 0;
+                    continue;
+                }
+                int r = unpremultiply(sums[sum], alphaSum);
+                int g = unpremultiply(sums[sum + 1], alphaSum);
+                int b = unpremultiply(sums[sum + 2], alphaSum);
+                int a = (alphaSum + samples / 2) / samples;
+                row[outX] = (a << 24) | (b << 16) | (g << 8) | r;
+            }
+            targetPixels.put(outY * outSize, row, 0, outSize);
+        }
+        return target;
+    }
+
+    private static int unpremultiply(int colorSum, int alphaSum) {
+        return Math.min(255, (colorSum * 255 + alphaSum / 2) / alphaSum);
+    }
+
+    /**
+     * Replace every pixel equal to the key with 0 (transparent).
+     * The loop is branch-free so the JIT can vectorize it.
+     */
+    public static void key(int[] pixels, int offset, int length, int key) {
+        for (int i = offset; i < offset + length; i++) {
+            int value = pixels[i];
+            int diff = value ^ key;
+            // All ones if the pixel differs from the key, zero if it matches
+            int mask = (diff | -diff) >> 31;
+            pixels[i] = value & mask;
+        }
+    }
+}
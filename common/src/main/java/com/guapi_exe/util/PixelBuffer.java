@@ -0,0 +1,297 @@
+package com.guapi_exe.util;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * RGBA pixels kept off the Java heap in a direct buffer, four bytes per pixel, row-major.
+ * This is the same layout as an RGBA {@link com.mojang.blaze3d.platform.NativeImage}, so rows can be
+ * copied between the two with plain bulk copies. Read as little-endian ints, pixels are packed ABGR.
+ * The memory is released by {@link #close}, or when the buffer is garbage collected if it is never closed;
+ * a closed buffer must not be used again.
+ * Copies into disjoint regions and row reads may run on several threads at once.
+ */
+public final class PixelBuffer implements Closeable {
+    private static final int CHANNELS = 4;
+    private static final int ROWS_PER_BAND = 64;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer bytes;
+    private final IntBuffer pixels;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * Allocate a transparent buffer.
+     *
+     * @throws IllegalArgumentException If the size is empty or does not fit into one buffer
+     */
+    public PixelBuffer(int width, int height) {
+        this(width, height, allocate(width, height), MemoryUtil::memFree);
+    }
+
+    /**
+     * @param free Releases the memory of {@code bytes}; must not refer to the buffer itself
+     */
+    private PixelBuffer(int width, int height, ByteBuffer bytes, Consumer<ByteBuffer> free) {
+        this.width = width;
+        this.height = height;
+        this.bytes = bytes;
+        this.pixels = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        this.cleanable = CLEANER.register(this, () -> free.accept(bytes));
+    }
+
+    private static ByteBuffer allocate(int width, int height) {
+        long size = (long) width * height * CHANNELS;
+        if (width <= 0 || height <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        return MemoryUtil.memCalloc((int) size);
+    }
+
+    /**
+     * Decode a PNG (or any other format stb_image reads) straight into native memory.
+     * The buffer wraps the memory stb_image decoded into, so the pixels are not copied again.
+     * Grayscale, paletted and 16-bit images are converted to 8-bit RGBA.
+     *
+     * @throws IOException If the bytes cannot be decoded
+     */
+    public static PixelBuffer decode(byte[] encoded) throws IOException {
+        ByteBuffer input = MemoryUtil.memAlloc(Math.max(1, encoded.length));
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            input.put(encoded).flip();
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            ByteBuffer decoded = STBImage.stbi_load_from_memory(input, w, h, channels, CHANNELS);
+            if (decoded == null) {
+                throw new IOException("Cannot decode image: " + STBImage.stbi_failure_reason());
+            }
+            return new PixelBuffer(w.get(0), h.get(0), decoded, STBImage::stbi_image_free);
+        } finally {
+            MemoryUtil.memFree(input);
+        }
+    }
+
+    /**
+     * Read the size of an encoded image without decoding it: from the IHDR chunk of a PNG,
+     * or through stb_image for other formats.
+     *
+     * @return {width, height}
+     * @throws IOException If the bytes are not an image stb_image can read
+     */
+    public static int[] readSize(byte[] encoded) throws IOException {
+        if (encoded.length >= 24 && Arrays.equals(encoded, 0, 8, PNG_SIGNATURE, 0, 8)
+                && encoded[12] == 'I' && encoded[13] == 'H' && encoded[14] == 'D' && encoded[15] == 'R') {
+            ByteBuffer header = ByteBuffer.wrap(encoded);
+            int width = header.getInt(16);
+            int height = header.getInt(20);
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid PNG size " + width + "x" + height);
+            }
+            return new int[]{width, height};
+        }
+
+        ByteBuffer input = MemoryUtil.memAlloc(Math.max(1, encoded.length));
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            input.put(encoded).flip();
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            if (!STBImage.stbi_info_from_memory(input, w, h, channels)) {
+                throw new IOException("Cannot read image size: " + STBImage.stbi_failure_reason());
+            }
+            return new int[]{w.get(0), h.get(0)};
+        } finally {
+            MemoryUtil.memFree(input);
+        }
+    }
+
+    /**
+     * Copy the pixels of a buffered image.
+     */
+    public static PixelBuffer of(BufferedImage image) {
+        PixelBuffer buffer = new PixelBuffer(image.getWidth(), image.getHeight());
+        int[] row = new int[buffer.width];
+        for (int y = 0; y < buffer.height; y++) {
+            image.getRGB(0, y, buffer.width, 1, row, 0, buffer.width);
+            for (int x = 0; x < buffer.width; x++) {
+                row[x] = swapRedBlue(row[x]);
+            }
+            buffer.pixels.put(y * buffer.width, row, 0, buffer.width);
+        }
+        return buffer;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Copy another buffer into this one with its top-left corner at (x, y).
+     *
+     * @throws IndexOutOfBoundsException If the source does not fit
+     */
+    public void put(int x, int y, PixelBuffer source) {
+        put(x, y, source, 0, 0, source.width, source.height);
+    }
+
+    /**
+     * Copy a {@code width x height} area of another buffer, starting at (sourceX, sourceY),
+     * into this one at (x, y).
+     *
+     * @throws IndexOutOfBoundsException If the area lies outside either buffer
+     */
+    public void put(int x, int y, PixelBuffer source, int sourceX, int sourceY, int width, int height) {
+        if (sourceX < 0 || sourceY < 0 || sourceX + width > source.width || sourceY + height > source.height) {
+            throw new IndexOutOfBoundsException(width + "x" + height + " at " + sourceX + "," + sourceY
+                    + " lies outside the " + source.width + "x" + source.height + " source");
+        }
+        copy(x, y, source.bytes, (sourceY * source.width + sourceX) * CHANNELS, source.width, width, height);
+    }
+
+    /**
+     * Copy the top-left {@code width x height} area of RGBA rows into this buffer at (x, y),
+     * one bulk copy per row.
+     *
+     * @param source      RGBA pixels, row-major
+     * @param sourceWidth Row length of the source in pixels
+     * @throws IndexOutOfBoundsException If the area does not fit
+     */
+    public void put(int x, int y, ByteBuffer source, int sourceWidth, int width, int height) {
+        copy(x, y, source, 0, sourceWidth, width, height);
+    }
+
+    private void copy(int x, int y, ByteBuffer source, int sourceOffset, int sourceWidth, int width, int height) {
+        if (x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+            throw new IndexOutOfBoundsException(width + "x" + height + " at " + x + "," + y
+                    + " does not fit into " + this.width + "x" + this.height);
+        }
+        int rowBytes = width * CHANNELS;
+        for (int row = 0; row < height; row++) {
+            bytes.put(((y + row) * this.width + x) * CHANNELS, source, sourceOffset + row * sourceWidth * CHANNELS,
+                    rowBytes);
+        }
+    }
+
+    /**
+     * Halve the buffer with a 2x2 box filter. Samples are averaged with premultiplied alpha,
+     * so transparent texels do not darken the edges of what they surround. Odd sizes round up,
+     * repeating the last column or row. Bands of rows are filtered in parallel on the {@link ImageWorkers}.
+     *
+     * @throws IOException If filtering is interrupted or fails
+     */
+    public PixelBuffer downsample() throws IOException {
+        PixelBuffer target = new PixelBuffer((width + 1) / 2, (height + 1) / 2);
+        int bands = (target.height + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+        List<Future<?>> futures = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            int start = band * ROWS_PER_BAND;
+            int end = Math.min(target.height, start + ROWS_PER_BAND);
+            futures.add(ImageWorkers.submit(() -> {
+                downsampleRows(target, start, end);
+                return null;
+            }));
+        }
+        // On failure the target is left to the cleaner, as cancelled bands may still be writing to it
+        for (Future<?> future : futures) {
+            ImageWorkers.await(future, futures, "downsampling");
+        }
+        return target;
+    }
+
+    /**
+     * Filter target rows {@code [start, end)}.
+     */
+    private void downsampleRows(PixelBuffer target, int start, int end) {
+        int[] top = new int[width];
+        int[] bottom = new int[width];
+        int[] row = new int[target.width];
+        for (int y = start; y < end; y++) {
+            pixels.get(2 * y * width, top, 0, width);
+            pixels.get(Math.min(2 * y + 1, height - 1) * width, bottom, 0, width);
+            for (int x = 0; x < target.width; x++) {
+                int left = 2 * x;
+                int right = Math.min(left + 1, width - 1);
+                row[x] = average(top[left], top[right], bottom[left], bottom[right]);
+            }
+            target.pixels.put(y * target.width, row, 0, target.width);
+        }
+    }
+
+    /**
+     * Premultiplied average of four packed ABGR pixels.
+     */
+    private static int average(int p0, int p1, int p2, int p3) {
+        int a0 = p0 >>> 24;
+        int a1 = p1 >>> 24;
+        int a2 = p2 >>> 24;
+        int a3 = p3 >>> 24;
+        int alpha = a0 + a1 + a2 + a3;
+        if (alpha == 0) {
+            return 0;
+        }
+        int result = (alpha + 2) / 4 << 24;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int sum = ((p0 >> shift) & 0xFF) * a0 + ((p1 >> shift) & 0xFF) * a1
+                    + ((p2 >> shift) & 0xFF) * a2 + ((p3 >> shift) & 0xFF) * a3;
+            result |= (sum + alpha / 2) / alpha << shift;
+        }
+        return result;
+    }
+
+    /**
+     * Read one row as packed ARGB pixels, as {@link PngEncoder.PixelRows} expects.
+     */
+    public void readRow(int y, int[] row) {
+        pixels.get(y * width, row, 0, width);
+        for (int x = 0; x < width; x++) {
+            row[x] = swapRedBlue(row[x]);
+        }
+    }
+
+    /**
+     * Feed the size and raw RGBA bytes into a digest.
+     */
+    public void hash(MessageDigest digest) {
+        ByteBuffer size = ByteBuffer.allocate(8).putInt(width).putInt(height).flip();
+        digest.update(size);
+        digest.update(bytes.duplicate().clear());
+    }
+
+    /**
+     * Release the memory now. Does nothing if it was already released.
+     */
+    @Override
+    public void close() {
+        cleanable.clean();
+    }
+
+    /**
+     * Convert between packed ABGR and ARGB; the conversion is its own inverse.
+     */
+    private static int swapRedBlue(int pixel) {
+        return (pixel & 0xFF00FF00) | ((pixel & 0x00FF0000) >>> 16) | ((pixel & 0x000000FF) << 16);
+    }
+}
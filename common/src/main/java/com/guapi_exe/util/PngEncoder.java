@@ -0,0 +1,468 @@
+package com.guapi_exe.util;
+
+import com.mojang.blaze3d.platform.NativeImage;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG writer for 8-bit RGBA images with a configurable deflate level and row filter.
+ * Large images are split into bands of rows that are filtered and deflated in parallel.
+ * Each band is primed with the last 32 KB of the band before it and ends on a sync flush,
+ * so the bands concatenate into one valid zlib stream at a small cost in size.
+ * Encoders are immutable and can be shared between threads.
+ */
+public final class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    /** Filtered bytes per parallel band; images up to one band are encoded on the calling thread */
+    private static final int BAND_BYTES = 1024 * 1024;
+    private static final int IDAT_SIZE = 64 * 1024;
+
+    /**
+     * Per-row PNG filter.
+     */
+    public enum Filter {
+        NONE(0),
+        SUB(1),
+        UP(2),
+        AVERAGE(3),
+        PAETH(4),
+        /** Try every filter on each row and keep the one with the smallest sum of absolute differences */
+        ADAPTIVE(-1);
+
+        private final int type;
+
+        Filter(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Source of image rows as packed ARGB pixels.
+     * May be called from several threads at once, for different rows.
+     */
+    @FunctionalInterface
+    public interface PixelRows {
+        /**
+         * Fill {@code row} with the pixels of row {@code y}.
+         */
+        void read(int y, int[] row);
+    }
+
+    private final int level;
+    private final Filter filter;
+    private final boolean parallel;
+
+    /**
+     * @param level    Deflate level, 0 (store) to 9 (smallest)
+     * @param filter   Row filter
+     * @param parallel Whether large images are deflated in parallel bands
+     */
+    public PngEncoder(int level, Filter filter, boolean parallel) {
+        this.level = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, level));
+        this.filter = filter;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Write a buffered image. Non-ARGB images are converted row by row.
+     */
+    public void write(BufferedImage image, File file) throws IOException {
+        int width = image.getWidth();
+        PixelRows rows;
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            // Packed ARGB rasters hand out their pixels directly
+            rows = (y, row) -> image.getRaster().getDataElements(0, y, width, 1, row);
+        } else {
+            rows = (y, row) -> image.getRGB(0, y, width, 1, row, 0, width);
+        }
+        write(width, image.getHeight(), rows, file);
+    }
+
+    /**
+     * Write an RGBA native image straight from its pixel memory.
+     */
+    public void write(NativeImage image, File file) throws IOException {
+        int width = image.getWidth();
+        IntBuffer pixels = NativePixels.pixels(image);
+        write(width, image.getHeight(), (y, row) -> {
+            pixels.get(y * width, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int abgr = row[x];
+                row[x] = (abgr & 0xFF00FF00) | ((abgr & 0x00FF0000) >>> 16) | ((abgr & 0x000000FF) << 16);
+            }
+        }, file);
+    }
+
+    /**
+     * Write an off-heap pixel buffer.
+     */
+    public void write(PixelBuffer pixels, File file) throws IOException {
+        write(pixels.getWidth(), pixels.getHeight(), pixels::readRow, file);
+    }
+
+    /**
+     * Write an image from a row source.
+     */
+    public void write(int width, int height, PixelRows rows, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), IDAT_SIZE)) {
+            encode(width, height, rows, out);
+        }
+    }
+
+    /**
+     * Encode an image into a stream. The stream is not closed.
+     */
+    public void encode(int width, int height, PixelRows rows, OutputStream out) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeByte(8);  // bit depth
+        data.writeByte(6);  // color type: RGBA
+        data.writeByte(0);  // deflate
+        data.writeByte(0);  // adaptive filtering
+        data.writeByte(0);  // no interlace
+        writeChunk(out, "IHDR", header.toByteArray(), 0, header.size());
+
+        IdatOutputStream idat = new IdatOutputStream(out);
+        int stride = width * BYTES_PER_PIXEL + 1;
+        int rowsPerBand = Math.max(1, BAND_BYTES / stride);
+        if (parallel && height > rowsPerBand) {
+            deflateBands(width, height, rows, rowsPerBand, idat);
+        } else {
+            Deflater deflater = new Deflater(level);
+            try (DeflaterOutputStream zlib = new DeflaterOutputStream(idat, deflater, IDAT_SIZE)) {
+                RowFilter rowFilter = new RowFilter(width);
+                for (int y = 0; y < height; y++) {
+                    rows.read(y, rowFilter.pixels);
+                    zlib.write(rowFilter.next(), 0, stride);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        writeChunk(out, "IEND", new byte[0], 0, 0);
+    }
+
+    /**
+     * Filter and deflate bands of rows on the {@link ImageWorkers}, writing them out in order.
+     */
+    private void deflateBands(int width, int height, PixelRows rows, int rowsPerBand,
+                              IdatOutputStream idat) throws IOException {
+        int bands = (height + rowsPerBand - 1) / rowsPerBand;
+        List<Future<Band>> futures = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            int start = band * rowsPerBand;
+            int end = Math.min(height, start + rowsPerBand);
+            boolean last = band == bands - 1;
+            futures.add(ImageWorkers.submit(() -> deflateBand(width, rows, start, end, last)));
+        }
+
+        // zlib header: deflate with a 32 KB window, FLEVEL matching the level, no preset dictionary
+        int flags = (level <= 1 ? 0 : level < 6 ? 1 : level == 6 ? 2 : 3) << 6;
+        flags += (31 - ((0x78 << 8) + flags) % 31) % 31;
+        idat.write(0x78);
+        idat.write(flags);
+        long adler = 1;
+        for (Future<Band> future : futures) {
+            Band band = ImageWorkers.await(future, futures, "encoding PNG");
+            idat.write(band.compressed, 0, band.compressed.length);
+            adler = combineAdler32(adler, band.adler, band.length);
+        }
+        idat.write((int) (adler >>> 24));
+        idat.write((int) (adler >>> 16));
+        idat.write((int) (adler >>> 8));
+        idat.write((int) adler);
+        idat.close();
+    }
+
+    /**
+     * Filter and deflate rows {@code [start, end)} as a raw deflate fragment.
+     * The rows before the band are filtered again to rebuild the dictionary the previous band ends with.
+     */
+    private Band deflateBand(int width, PixelRows rows, int start, int end, boolean last) {
+        int stride = width * BYTES_PER_PIXEL + 1;
+        int dictionaryRows = Math.min(start, (DICTIONARY_SIZE + stride - 1) / stride);
+        RowFilter rowFilter = new RowFilter(width);
+        if (start - dictionaryRows > 0) {
+            // Prime the filter with the row above the first one it outputs
+            rows.read(start - dictionaryRows - 1, rowFilter.pixels);
+            rowFilter.next();
+        }
+
+        byte[] dictionary = new byte[dictionaryRows * stride];
+        for (int y = start - dictionaryRows; y < start; y++) {
+            rows.read(y, rowFilter.pixels);
+            System.arraycopy(rowFilter.next(), 0, dictionary, (y - start + dictionaryRows) * stride, stride);
+        }
+        byte[] filtered = new byte[(end - start) * stride];
+        for (int y = start; y < end; y++) {
+            rows.read(y, rowFilter.pixels);
+            System.arraycopy(rowFilter.next(), 0, filtered, (y - start) * stride, stride);
+        }
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary.length > 0) {
+                int length = Math.min(DICTIONARY_SIZE, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(filtered);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(filtered.length / 4 + 64);
+            byte[] buffer = new byte[IDAT_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // A sync flush ends on a byte boundary with every input byte emitted
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            Adler32 adler = new Adler32();
+            adler.update(filtered);
+            return new Band(out.toByteArray(), adler.getValue(), filtered.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Adler-32 of two concatenated sequences, from the checksum of each and the second's length.
+     */
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + base - remainder;
+        if (sum1 >= base) sum1 -= base;
+        if (sum1 >= base) sum1 -= base;
+        if (sum2 >= base << 1) sum2 -= base << 1;
+        if (sum2 >= base) sum2 -= base;
+        return sum1 | (sum2 << 16);
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Turns consecutive rows of ARGB pixels into filtered scanlines, keeping the previous row.
+     */
+    private final class RowFilter {
+        private final int[] pixels;
+        private byte[] row;
+        private byte[] above;
+        private final byte[] out;
+
+        private RowFilter(int width) {
+            this.pixels = new int[width];
+            this.row = new byte[width * BYTES_PER_PIXEL];
+            // The row above the first one is all zeros
+            this.above = new byte[row.length];
+            this.out = new byte[row.length + 1];
+        }
+
+        /**
+         * Filter the row currently in {@link #pixels}.
+         *
+         * @return Scanline with its filter type byte; overwritten by the next call
+         */
+        private byte[] next() {
+            byte[] previous = above;
+            above = row;
+            row = previous;
+            for (int x = 0, i = 0; x < pixels.length; x++, i += BYTES_PER_PIXEL) {
+                int argb = pixels[x];
+                row[i] = (byte) (argb >>> 16);
+                row[i + 1] = (byte) (argb >>> 8);
+                row[i + 2] = (byte) argb;
+                row[i + 3] = (byte) (argb >>> 24);
+            }
+            int type = filter == Filter.ADAPTIVE ? chooseFilter(row, above) : filter.type;
+            apply(type, row, above);
+            return out;
+        }
+
+        private void apply(int type, byte[] row, byte[] above) {
+            out[0] = (byte) type;
+            int length = row.length;
+            switch (type) {
+                case 1:
+                    for (int i = 0; i < length; i++) {
+                        int left = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] : 0;
+                        out[i + 1] = (byte) (row[i] - left);
+                    }
+                    break;
+                case 2:
+                    for (int i = 0; i < length; i++) {
+                        out[i + 1] = (byte) (row[i] - above[i]);
+                    }
+                    break;
+                case 3:
+                    for (int i = 0; i < length; i++) {
+                        int left = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                        out[i + 1] = (byte) (row[i] - ((left + (above[i] & 0xFF)) >>> 1));
+                    }
+                    break;
+                case 4:
+                    for (int i = 0; i < length; i++) {
+                        int left = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                        int upLeft = i >= BYTES_PER_PIXEL ? above[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                        out[i + 1] = (byte) (row[i] - paeth(left, above[i] & 0xFF, upLeft));
+                    }
+                    break;
+                default:
+                    System.arraycopy(row, 0, out, 1, length);
+                    break;
+            }
+        }
+
+        /**
+         * Pick the filter with the smallest sum of absolute filtered values, in one pass over the row.
+         */
+        private int chooseFilter(byte[] row, byte[] above) {
+            long none = 0;
+            long sub = 0;
+            long up = 0;
+            long average = 0;
+            long paeth = 0;
+            for (int i = 0; i < row.length; i++) {
+                int value = row[i] & 0xFF;
+                int left = i >= BYTES_PER_PIXEL ? row[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int top = above[i] & 0xFF;
+                int upLeft = i >= BYTES_PER_PIXEL ? above[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                none += Math.abs((byte) value);
+                sub += Math.abs((byte) (value - left));
+                up += Math.abs((byte) (value - top));
+                average += Math.abs((byte) (value - ((left + top) >>> 1)));
+                paeth += Math.abs((byte) (value - paeth(left, top, upLeft)));
+            }
+            int best = 0;
+            long bestSum = none;
+            if (sub < bestSum) { best = 1; bestSum = sub; }
+            if (up < bestSum) { best = 2; bestSum = up; }
+            if (average < bestSum) { best = 3; bestSum = average; }
+            if (paeth < bestSum) { best = 4; }
+            return best;
+        }
+    }
+
+    private static int paeth(int left, int above, int upperLeft) {
+        int estimate = left + above - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceAbove = Math.abs(estimate - above);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceAbove && distanceLeft <= distanceUpperLeft) return left;
+        if (distanceAbove <= distanceUpperLeft) return above;
+        return upperLeft;
+    }
+
+    /**
+     * Compressed band of rows with the Adler-32 of its uncompressed bytes.
+     */
+    private static final class Band {
+        private final byte[] compressed;
+        private final long adler;
+        private final long length;
+
+        private Band(byte[] compressed, long adler, long length) {
+            this.compressed = compressed;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Splits a zlib stream into IDAT chunks of bounded size.
+     */
+    private static final class IdatOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[IDAT_SIZE];
+        private int count;
+
+        private IdatOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(b, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk(out, "IDAT", buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        /**
+         * Emit the last IDAT chunk. The underlying stream stays open for IEND.
+         */
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+    }
+}
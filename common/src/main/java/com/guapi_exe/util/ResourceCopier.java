@@ -0,0 +1,147 @@
+package com.guapi_exe.util;
+
+import com.guapi_exe.mixin.FilePackResourcesAccessor;
+import com.guapi_exe.mixin.PathPackResourcesAccessor;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.FilePackResources;
+import net.minecraft.server.packs.PackResources;
+import net.minecraft.server.packs.PathPackResources;
+import net.minecraft.server.packs.resources.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Copies resources to files without passing them through heap buffers where possible.
+ * Resources are copied one pack at a time. Files of a directory pack are copied from its root, file to file
+ * with channel transfers when they are on the local disk, which the OS can do without copying into user space.
+ * A zip or jar pack is opened as a file system once for all of its resources. Anything else (generated
+ * resources, packs of unknown type) is streamed from the resource.
+ */
+public final class ResourceCopier {
+
+    private ResourceCopier() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Copy every resource to the file chosen for it, opening the archive of each pack once.
+     * Failures are logged and skipped.
+     *
+     * @param target File each resource is copied to; parent directories are created
+     * @return Number of bytes copied
+     */
+    public static long copyAll(Map<ResourceLocation, Resource> resources, Function<ResourceLocation, Path> target) {
+        Map<PackResources, Map<ResourceLocation, Resource>> byPack = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+            byPack.computeIfAbsent(entry.getValue().source(), pack -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+
+        long copied = 0;
+        for (Map.Entry<PackResources, Map<ResourceLocation, Resource>> pack : byPack.entrySet()) {
+            copied += copyPack(pack.getKey(), pack.getValue(), target);
+        }
+        return copied;
+    }
+
+    private static long copyPack(PackResources pack, Map<ResourceLocation, Resource> resources,
+                                 Function<ResourceLocation, Path> target) {
+        if (pack instanceof PathPackResources) {
+            return copyFrom(((PathPackResourcesAccessor) pack).getRoot(), resources, target);
+        }
+        if (!(pack instanceof FilePackResources)) {
+            return copyFrom(null, resources, target);
+        }
+
+        FileSystem archive;
+        try {
+            archive = FileSystems.newFileSystem(((FilePackResourcesAccessor) pack).getFile().toPath());
+        } catch (IOException e) {
+            ExporterLogger.warn("Cannot open pack {}, streaming its files: {}", pack.packId(), e.getMessage());
+            return copyFrom(null, resources, target);
+        }
+        try {
+            return copyFrom(archive.getPath("/"), resources, target);
+        } finally {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                ExporterLogger.warn("Failed to close pack {}: {}", pack.packId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copy resources of one pack, from the pack's files under {@code root} where they exist.
+     *
+     * @param root Root of the pack, or null to stream every resource
+     */
+    private static long copyFrom(Path root, Map<ResourceLocation, Resource> resources,
+                                 Function<ResourceLocation, Path> target) {
+        long copied = 0;
+        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+            ResourceLocation location = entry.getKey();
+            try {
+                Path output = target.apply(location);
+                Files.createDirectories(output.getParent());
+                Path source = root != null ? packFile(root, location) : null;
+                if (source != null && Files.isRegularFile(source)) {
+                    copied += copy(source, output);
+                } else {
+                    try (InputStream in = entry.getValue().open()) {
+                        copied += Files.copy(in, output, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            } catch (Exception e) {
+                ExporterLogger.error("Failed to export raw file {}: {}", location, e.getMessage());
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Copy a file, replacing the target. Local files are transferred channel to channel.
+     *
+     * @return Number of bytes copied
+     */
+    public static long copy(Path source, Path target) throws IOException {
+        if (source.getFileSystem() != FileSystems.getDefault() || target.getFileSystem() != FileSystems.getDefault()) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            return Files.size(target);
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) break;
+                position += transferred;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Path of a client resource below the root of its pack.
+     */
+    private static Path packFile(Path root, ResourceLocation location) {
+        Path file = root.resolve("assets").resolve(location.getNamespace());
+        for (String segment : location.getPath().split("/")) {
+            file = file.resolve(segment);
+        }
+        return file;
+    }
+}
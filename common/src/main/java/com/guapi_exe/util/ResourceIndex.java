@@ -0,0 +1,96 @@
+package com.guapi_exe.util;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resource map grouped by namespace and resource kind in a single pass,
+ * so per-namespace exporters only ever iterate their own slice.
+ */
+public final class ResourceIndex {
+
+    /**
+     * Kind of resource, determined by file extension.
+     */
+    public enum Kind {
+        JSON(".json"),
+        OBJ(".obj"),
+        MTL(".mtl"),
+        PNG(".png"),
+        MCMETA(".mcmeta"),
+        OTHER("");
+
+        private final String extension;
+
+        Kind(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Determine the kind of a resource path.
+         */
+        public static Kind of(String path) {
+            for (Kind kind : values()) {
+                if (kind != OTHER && path.endsWith(kind.extension)) {
+                    return kind;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    private final Map<String, Map<ResourceLocation, Resource>> byNamespace = new HashMap<>();
+    private final Map<String, Map<Kind, Map<ResourceLocation, Resource>>> byNamespaceAndKind = new HashMap<>();
+    private int size;
+
+    private ResourceIndex() {
+    }
+
+    /**
+     * Index a resource map. Iteration order within each slice follows the source map.
+     */
+    public static ResourceIndex build(Map<ResourceLocation, Resource> resources) {
+        ResourceIndex index = new ResourceIndex();
+        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+            ResourceLocation location = entry.getKey();
+            String namespace = location.getNamespace();
+
+            index.byNamespace.computeIfAbsent(namespace, k -> new LinkedHashMap<>())
+                    .put(location, entry.getValue());
+            index.byNamespaceAndKind.computeIfAbsent(namespace, k -> new EnumMap<>(Kind.class))
+                    .computeIfAbsent(Kind.of(location.getPath()), k -> new LinkedHashMap<>())
+                    .put(location, entry.getValue());
+            index.size++;
+        }
+        return index;
+    }
+
+    /**
+     * Number of indexed resources across all namespaces.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * All resources of a namespace.
+     */
+    public Map<ResourceLocation, Resource> get(String namespace) {
+        return byNamespace.getOrDefault(namespace, Collections.emptyMap());
+    }
+
+    /**
+     * Resources of a namespace with the given kind.
+     */
+    public Map<ResourceLocation, Resource> get(String namespace, Kind kind) {
+        Map<Kind, Map<ResourceLocation, Resource>> kinds = byNamespaceAndKind.get(namespace);
+        if (kinds == null) return Collections.emptyMap();
+        return kinds.getOrDefault(kind, Collections.emptyMap());
+    }
+}
@@ -1,21 +1,27 @@
 package com.guapi_exe.util;
 
+import com.guapi_exe.export.AnimationMode;
+import com.guapi_exe.export.ExportSettings;
+import com.guapi_exe.export.TextureAnimation;
 import com.guapi_exe.export.TextureEntry;
+import com.guapi_exe.export.TextureRegistry;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Utility class for texture collection and processing.
@@ -27,46 +33,94 @@ public final class TextureUtils {
     }
 
     /**
-     * Collect textures from resource map.
+     * Read the encoded bytes of every texture once, so the raw export and the atlas
+     * can share them without opening the resource again.
+     * @param resources PNG resources of a single namespace
+     * @return Encoded texture bytes in resource order
      */
-    public static void collectTextures(Map<ResourceLocation, Resource> resources, String namespace,
-                                       String prefixToRemove, List<TextureEntry> textures) {
+    public static Map<ResourceLocation, byte[]> readTextures(Map<ResourceLocation, Resource> resources) {
+        Map<ResourceLocation, byte[]> loaded = new LinkedHashMap<>();
         for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
-            ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
-
             try (InputStream stream = entry.getValue().open()) {
-                BufferedImage image = ImageIO.read(stream);
-                if (image != null) {
-                    String path = location.getPath();
-                    String name = path.substring(prefixToRemove.length(), path.length() - ".png".length());
-                    textures.add(new TextureEntry(name, image));
-                }
+                loaded.put(entry.getKey(), stream.readAllBytes());
             } catch (Exception e) {
-                ExporterLogger.debug("Failed to collect texture {}: {}", location, e.getMessage());
+                ExporterLogger.debug("Failed to read texture {}: {}", entry.getKey(), e.getMessage());
             }
         }
+        return loaded;
+    }
+
+    /**
+     * Collect textures from loaded texture bytes. Only their sizes are read here;
+     * images are decoded when the atlas is composed. Unreadable textures are skipped.
+     */
+    public static void collectTextures(Map<ResourceLocation, byte[]> loaded,
+                                       String prefixToRemove, TextureRegistry textures) {
+        collectTextures(loaded, Collections.emptyMap(), prefixToRemove, textures);
     }
 
     /**
-     * Export raw texture files to assets directory.
+     * Collect textures from loaded texture bytes, storing animated textures as configured by
+     * {@link ExportSettings#getAnimationMode()}. A texture is animated if it has a .png.mcmeta
+     * with an animation section; a malformed one is ignored and the whole image is stored.
+     *
+     * @param mcmetas Animation metadata of the same namespace, keyed by location (texture path + ".mcmeta")
      */
-    public static void exportRawTextures(Map<ResourceLocation, Resource> resources, File modExportDir,
-                                         String namespace, String subDir) {
+    public static void collectTextures(Map<ResourceLocation, byte[]> loaded, Map<ResourceLocation, Resource> mcmetas,
+                                       String prefixToRemove, TextureRegistry textures) {
+        AnimationMode mode = ExportSettings.getInstance().getAnimationMode();
+        for (Map.Entry<ResourceLocation, byte[]> entry : loaded.entrySet()) {
+            ResourceLocation location = entry.getKey();
+            String path = location.getPath();
+            String name = path.substring(prefixToRemove.length(), path.length() - ".png".length());
+            try {
+                Resource mcmeta = mcmetas.get(new ResourceLocation(location.getNamespace(), path + ".mcmeta"));
+                TextureAnimation animation = mcmeta != null ? readAnimation(location, entry.getValue(), mcmeta, mode) : null;
+                textures.add(new TextureEntry(name, entry.getValue(), animation));
+            } catch (IOException e) {
+                ExporterLogger.warn("Skipping texture {}: {}", location, e.getMessage());
+            }
+        }
+    }
+
+    private static TextureAnimation readAnimation(ResourceLocation location, byte[] data, Resource mcmeta,
+                                                  AnimationMode mode) throws IOException {
+        int[] size = PixelBuffer.readSize(data);
+        try (Reader reader = mcmeta.openAsReader()) {
+            return TextureAnimation.read(reader, size[0], size[1], mode);
+        } catch (IOException e) {
+            ExporterLogger.warn("Malformed animation of {}, exporting it as a static image: {}", location, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Export raw texture files to assets directory, keeping existing files of unchanged textures.
+     * @param loaded Encoded texture bytes of this namespace only
+     * @param unchanged Whether a texture has the same content as in the previous export
+     * @return Number of bytes written
+     */
+    public static long exportRawTextures(Map<ResourceLocation, byte[]> loaded, File modExportDir,
+                                         String namespace, String subDir, Predicate<ResourceLocation> unchanged) {
         File texturesDir = new File(modExportDir, "assets/textures/" + subDir);
         texturesDir.mkdirs();
 
         int count = 0;
-        for (Map.Entry<ResourceLocation, Resource> entry : resources.entrySet()) {
+        int kept = 0;
+        long written = 0;
+        for (Map.Entry<ResourceLocation, byte[]> entry : loaded.entrySet()) {
             ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
-
-            try (InputStream stream = entry.getValue().open()) {
+            try {
                 String path = location.getPath();
                 // Extract filename from path (e.g., "textures/block/stone.png" -> "stone.png")
                 String filename = path.substring(path.lastIndexOf('/') + 1);
-                File outFile = new File(texturesDir, filename);
-                Files.copy(stream, outFile.toPath());
+                File file = new File(texturesDir, filename);
+                if (unchanged.test(location) && file.isFile()) {
+                    kept++;
+                    continue;
+                }
+                Files.write(file.toPath(), entry.getValue());
+                written += entry.getValue().length;
                 count++;
             } catch (Exception e) {
                 ExporterLogger.debug("Failed to export raw texture {}: {}", location, e.getMessage());
@@ -76,17 +130,20 @@ public final class TextureUtils {
         if (count > 0) {
             ExporterLogger.info("Exported {} raw {} textures for {}", count, subDir, namespace);
         }
+        if (kept > 0) {
+            ExporterLogger.debug("Kept {} unchanged raw {} textures for {}", kept, subDir, namespace);
+        }
+        return written;
     }
 
     /**
      * Collect textures referenced in MTL files.
+     * @param mtlFiles MTL resources of this namespace only
      */
-    public static void collectMtlTextures(ResourceManager manager, Map<ResourceLocation, Resource> models,
-                                          String namespace, List<TextureEntry> textures) {
-        for (Map.Entry<ResourceLocation, Resource> entry : models.entrySet()) {
+    public static void collectMtlTextures(ResourceManager manager, Map<ResourceLocation, Resource> mtlFiles,
+                                          String namespace, TextureRegistry textures) {
+        for (Map.Entry<ResourceLocation, Resource> entry : mtlFiles.entrySet()) {
             ResourceLocation location = entry.getKey();
-            if (!location.getNamespace().equals(namespace)) continue;
-            if (!location.getPath().endsWith(".mtl")) continue;
 
             try (BufferedReader reader = new BufferedReader(
                     new InputStreamReader(entry.getValue().open(), StandardCharsets.UTF_8))) {
@@ -115,7 +172,7 @@ public final class TextureUtils {
     }
 
     private static void processTexturePath(ResourceManager manager, String namespace, String texturePath,
-                                           List<TextureEntry> textures) {
+                                           TextureRegistry textures) {
         ResourceLocation texLoc;
         if (texturePath.contains(":")) {
             texLoc = new ResourceLocation(texturePath);
@@ -123,6 +180,10 @@ public final class TextureUtils {
             texLoc = new ResourceLocation(namespace, texturePath);
         }
 
+        // The key ignores the textures/ prefix, so it is known before the resource is looked up
+        String key = textureKey(texLoc.getPath());
+        if (textures.contains(key)) return;
+
         Optional<Resource> res = manager.getResource(texLoc);
         if (res.isEmpty() && !texLoc.getPath().startsWith("textures/")) {
             texLoc = new ResourceLocation(texLoc.getNamespace(), "textures/" + texLoc.getPath());
@@ -130,23 +191,18 @@ public final class TextureUtils {
         }
 
         if (res.isPresent()) {
-            try (InputStream stream = res.get().open()) {
-                BufferedImage image = ImageIO.read(stream);
-                if (image != null) {
-                    String path = texLoc.getPath();
-                    String key = path.startsWith("textures/") ? path.substring("textures/".length()) : path;
-                    if (key.endsWith(".png")) key = key.substring(0, key.length() - 4);
-
-                    // Check for duplicates
-                    final String finalKey = key;
-                    boolean exists = textures.stream().anyMatch(t -> t.getKey().equals(finalKey));
-                    if (!exists) {
-                        textures.add(new TextureEntry(key, image));
-                    }
-                }
+            // Keep only a handle to the resource; it is read again when the atlas is composed
+            try {
+                textures.add(new TextureEntry(key, res.get()::open));
             } catch (Exception e) {
                 ExporterLogger.debug("Failed to load MTL texture {}: {}", texLoc, e.getMessage());
             }
         }
     }
+
+    private static String textureKey(String path) {
+        String key = path.startsWith("textures/") ? path.substring("textures/".length()) : path;
+        if (key.endsWith(".png")) key = key.substring(0, key.length() - 4);
+        return key;
+    }
 }